@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+/*
+ * An exploration-like push/add/solve/pop loop on a CoralSolverContext: the
+ * path condition grows to depth constraints and is then unwound again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextBenchmark {
+
+	@Param({"10", "50"})
+	public int depth;
+
+	private CoralSolver solver;
+	private List<Expression<Boolean>> path;
+
+	@Setup
+	public void setup() {
+		this.solver = new CoralSolverBuilder().seed(464655).buildCoralSolver();
+		this.path = new ArrayList<>();
+		Variable<Double> prev = new Variable<Double>(BuiltinTypes.DOUBLE, "x0");
+		for(int i = 1; i <= this.depth; i++) {
+			Variable<Double> next = new Variable<Double>(BuiltinTypes.DOUBLE, "x" + i);
+			this.path.add(new NumericBooleanExpression(next, NumericComparator.GT,
+					new NumericCompound<Double>(prev, NumericOperator.PLUS, new Constant<Double>(BuiltinTypes.DOUBLE, 1.0))));
+			prev = next;
+		}
+	}
+
+	@Benchmark
+	public void pushAddSolvePop(Blackhole bh) {
+		SolverContext ctx = this.solver.createContext();
+		for(Expression<Boolean> e : this.path) {
+			ctx.push();
+			ctx.add(Collections.singletonList(e));
+			bh.consume(ctx.solve(new Valuation()));
+		}
+		ctx.pop(this.path.size());
+		ctx.dispose();
+	}
+}
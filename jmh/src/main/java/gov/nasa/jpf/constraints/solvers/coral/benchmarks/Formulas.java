@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+/*
+ * Formulas used by the benchmarks. The named ones are the satisfiable queries
+ * of TrigonometricTest, ComplexMathTest and ArithmeticTest.
+ */
+final class Formulas {
+
+	static final String[] NAMES = {
+		"exprSin", "exampleFromHP", "z3Expr", "z3Coral1", "z3Coral2", "exp", "log", "arithmetic"
+	};
+
+	private Formulas() { }
+
+	private static Constant<Double> c(double d) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, d);
+	}
+
+	private static Variable<Double> var(String name) {
+		return new Variable<Double>(BuiltinTypes.DOUBLE, name);
+	}
+
+	private static NumericCompound<Double> op(Expression<Double> l, NumericOperator op, Expression<Double> r) {
+		return new NumericCompound<Double>(l, op, r);
+	}
+
+	static Expression<Boolean> named(String name) {
+		Variable<Double> x = var("x");
+		Variable<Double> y = var("y");
+		switch(name) {
+		case "exprSin":
+			return new NumericBooleanExpression(op(y, NumericOperator.PLUS, c(7.2)),
+					NumericComparator.EQ, new FunctionExpression<>(MathFunctions.SIN, x));
+		case "exampleFromHP":
+			return new NumericBooleanExpression(
+					op(new FunctionExpression<>(MathFunctions.SIN, x), NumericOperator.PLUS,
+					   new FunctionExpression<>(MathFunctions.COS, y)),
+					NumericComparator.EQ, c(2.0));
+		case "z3Expr": {
+			Variable<Double> head = var("head");
+			NumericCompound<Double> cosArg = op(c(3.141592653589793), NumericOperator.PLUS,
+					op(c(0.017453292519943295), NumericOperator.MUL, head));
+			NumericCompound<Double> asinArg = op(c(0.6130455374565814), NumericOperator.PLUS,
+					op(c(0.01204238407208075), NumericOperator.MUL, new FunctionExpression<>(MathFunctions.COS, cosArg)));
+			return new NumericBooleanExpression(c(90.0), NumericComparator.GE,
+					op(c(57.29577951308232), NumericOperator.MUL, new FunctionExpression<>(MathFunctions.ASIN, asinArg)));
+		}
+		case "z3Coral1":
+			return new NumericBooleanExpression(
+					op(new FunctionExpression<>(MathFunctions.SIN, var("x1")), NumericOperator.MINUS,
+					   new FunctionExpression<>(MathFunctions.COS, var("x2"))),
+					NumericComparator.EQ, c(0.0));
+		case "z3Coral2": {
+			Constant<Double> c1 = c(0.017453292519943295);
+			Variable<Double> x1 = var("x1");
+			Variable<Double> x2 = var("x2");
+			Variable<Double> x3 = var("x3");
+			Variable<Double> x4 = var("x4");
+			NumericCompound<Double> angle = op(op(c1, NumericOperator.MUL, x2), NumericOperator.MINUS,
+					op(c1, NumericOperator.MUL, x3));
+			FunctionExpression<Double> pow1 = new FunctionExpression<Double>(MathFunctions.POW,
+					op(op(x1, NumericOperator.MUL, new FunctionExpression<>(MathFunctions.SIN, angle)),
+					   NumericOperator.MINUS, op(c(0.0), NumericOperator.MUL, x4)), c(2.0));
+			FunctionExpression<Double> pow2 = new FunctionExpression<Double>(MathFunctions.POW,
+					op(x1, NumericOperator.MUL, new FunctionExpression<>(MathFunctions.COS,
+							op(angle, NumericOperator.PLUS, c(0.0)))), c(2.0));
+			return new NumericBooleanExpression(c(0.0), NumericComparator.EQ,
+					op(pow1, NumericOperator.PLUS, pow2));
+		}
+		case "exp":
+			return new NumericBooleanExpression(y, NumericComparator.EQ,
+					new FunctionExpression<>(MathFunctions.EXP, c(20.3)));
+		case "log":
+			return new NumericBooleanExpression(c(9.5), NumericComparator.EQ,
+					new FunctionExpression<>(MathFunctions.LOG, x));
+		case "arithmetic":
+			return new NumericBooleanExpression(x, NumericComparator.EQ,
+					op(c(30.0), NumericOperator.MUL, c(2.5)));
+		default:
+			throw new IllegalArgumentException("Unknown formula " + name);
+		}
+	}
+
+	/*
+	 * A conjunction of size nonlinear constraints over size / 2 + 2 variables
+	 * that are chained to each other, i.e., the formula does not slice.
+	 */
+	static Expression<Boolean> synthetic(int size) {
+		List<Variable<Double>> vars = new ArrayList<>();
+		for(int i = 0; i < size / 2 + 2; i++)
+			vars.add(var("v" + i));
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		for(int i = 0; i < size; i++) {
+			Variable<Double> a = vars.get(i % vars.size());
+			Variable<Double> b = vars.get((i + 1) % vars.size());
+			Expression<Double> lhs = op(op(new FunctionExpression<>(MathFunctions.SIN, a), NumericOperator.MUL, b),
+					NumericOperator.PLUS, c(i * 0.5));
+			conjuncts.add(new NumericBooleanExpression(lhs, (i % 2 == 0) ? NumericComparator.LT : NumericComparator.GE,
+					op(b, NumericOperator.MINUS, c(i))));
+		}
+		return ExpressionUtil.and(conjuncts);
+	}
+}
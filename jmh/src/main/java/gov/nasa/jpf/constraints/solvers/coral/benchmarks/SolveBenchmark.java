@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+
+/*
+ * End-to-end solving of the formulas of the test suite. The seed is fixed
+ * and caching is off, so every invocation runs the same search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+	@Param({"exprSin", "exampleFromHP", "z3Expr", "z3Coral1", "z3Coral2", "exp", "log", "arithmetic"})
+	public String formula;
+
+	private Expression<Boolean> expr;
+	private CoralSolver solver;
+
+	@Setup
+	public void setup() {
+		this.expr = Formulas.named(this.formula);
+		this.solver = new CoralSolverBuilder().seed(464655).buildCoralSolver();
+	}
+
+	@Benchmark
+	public Result solve() {
+		return this.solver.solve(this.expr, new Valuation());
+	}
+}
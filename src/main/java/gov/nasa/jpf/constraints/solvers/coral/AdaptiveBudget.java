@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+
+/*
+ * Picks the iteration budget of a search from the features of its formula.
+ * The estimate grows with the number of variables and of nonlinear and
+ * transcendental operations. On top of that, every class of formulas (same
+ * number of variables and of hard operations, both capped) learns a scale
+ * factor: it doubles when a search of that class gives up and shrinks slowly
+ * when one succeeds.
+ */
+final class AdaptiveBudget {
+
+	private static final int MAX_CLASS = 8;
+	private static final double MIN_SCALE = 0.25;
+	private static final double MAX_SCALE = 64;
+
+	private final int minIterations;
+	private final int maxIterations;
+	private final double[] scales = new double[(MAX_CLASS + 1) * (MAX_CLASS + 1)];
+
+	AdaptiveBudget(int minIterations, int maxIterations) {
+		if(minIterations < 1 || maxIterations < minIterations)
+			throw new CoralConfigurationException("Invalid range of adaptive iterations: " +
+			    minIterations + ".." + maxIterations);
+		this.minIterations = minIterations;
+		this.maxIterations = maxIterations;
+		for(int i = 0; i < this.scales.length; i++)
+			this.scales[i] = 1.0;
+	}
+
+	int getMinIterations() {
+		return this.minIterations;
+	}
+
+	int getMaxIterations() {
+		return this.maxIterations;
+	}
+
+	private static int classOf(FormulaFeatures f) {
+		int vars = Math.min(f.getVariables(), MAX_CLASS);
+		int hard = Math.min(f.getNonlinear() + f.getTranscendental(), MAX_CLASS);
+		return vars * (MAX_CLASS + 1) + hard;
+	}
+
+	/*
+	 * The budget before any history is taken into account
+	 */
+	long estimate(FormulaFeatures f) {
+		long it = this.minIterations;
+		it *= 1 + f.getVariables();
+		it *= 1 + f.getNonlinear() + 2 * f.getTranscendental();
+		it *= Math.max(1, f.getDepth() / 4);
+		return it;
+	}
+
+	int iterationsFor(FormulaFeatures f) {
+		double scale;
+		synchronized(this.scales) {
+			scale = this.scales[classOf(f)];
+		}
+		double it = estimate(f) * scale;
+		return (int)Math.max(this.minIterations, Math.min(this.maxIterations, it));
+	}
+
+	/*
+	 * Feeds the final answer of a query with features f back into the budget
+	 */
+	void record(FormulaFeatures f, SolveResult res) {
+		double factor;
+		if(res.getResult() == Result.SAT)
+			factor = 0.9;
+		else if(res.getResult() == Result.DONT_KNOW &&
+		    (res.getReason() == SolveResult.Reason.INCOMPLETE || res.getReason() == SolveResult.Reason.TIMEOUT))
+			factor = 2.0;
+		else
+			return;
+		int c = classOf(f);
+		synchronized(this.scales) {
+			this.scales[c] = Math.max(MIN_SCALE, Math.min(MAX_SCALE, this.scales[c] * factor));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "adaptive iterations " + this.minIterations + ".." + this.maxIterations;
+	}
+}
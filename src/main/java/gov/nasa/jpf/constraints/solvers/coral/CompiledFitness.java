@@ -0,0 +1,765 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.BoolType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.FloatType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt32Type;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt64Type;
+import gov.nasa.jpf.constraints.types.IntegerType;
+import gov.nasa.jpf.constraints.types.Type;
+
+/*
+ * A formula compiled into a tree of specialized nodes that computes its branch
+ * distance over a double[] holding the values of its variables (Booleans are
+ * 0 or 1). The distance is 0 exactly when the formula holds for the values, and
+ * grows with the distance of the operands of the comparisons that fail:
+ *
+ *   a == b  |a - b|        a != b  K
+ *   a <= b  a - b          a <  b  a - b + K
+ *   f && g  d(f) + d(g)    f || g  min(d(f), d(g))
+ *
+ * Negations are pushed down to the comparisons. Unlike evaluating Coral's
+ * symlib tree, this works on unboxed doubles and allocates nothing. Numeric
+ * constants are read from a parameter array, so formulas that only differ in
+ * their constants and variable names can share the nodes (see FitnessCache).
+ *
+ * Arithmetic is done in double precision, with integer division and casts
+ * truncated; overflows of int and long are not modelled, so models found with
+ * the fitness must still be checked with the formula.
+ */
+final class CompiledFitness {
+
+	//distance added for failed strict comparisons
+	static final double K = 1.0;
+	//distance of comparisons that fail because an operand is NaN
+	static final double PENALTY = 1e30;
+
+	/*
+	 * The nodes of a shape and the number of rows their batch evaluation needs
+	 */
+	static final class Template {
+		final Cond root;
+		final int slots;
+
+		Template(Cond root, int slots) {
+			this.root = root;
+			this.slots = slots;
+		}
+	}
+
+	//shared by all formulas of the same shape
+	private final Template template;
+	private final List<Variable<?>> variables;
+	private final double[] params;
+
+	CompiledFitness(Template template, Shape shape) {
+		this.template = template;
+		this.variables = shape.getVariables();
+		this.params = shape.getParams();
+	}
+
+	/*
+	 * Throws an UnsupportedOperationException if f contains operators (e.g.,
+	 * bit-vector operations) that cannot be compiled
+	 */
+	static CompiledFitness compile(Expression<Boolean> f) {
+		Shape shape = new Shape(f);
+		return new CompiledFitness(compile(f, shape), shape);
+	}
+
+	/*
+	 * The node tree of the shape of f. It reads the constants of f from the
+	 * parameters, so it can be used for every formula of that shape.
+	 */
+	static Template compile(Expression<Boolean> f, Shape shape) {
+		Compiler c = new Compiler(shape);
+		Cond root = c.cond(f, false);
+		return new Template(root, c.slots);
+	}
+
+	/*
+	 * The variables in the order of their values in the double[]
+	 */
+	List<Variable<?>> getVariables() {
+		return this.variables;
+	}
+
+	int getDimension() {
+		return this.variables.size();
+	}
+
+	boolean isIntegral(int i) {
+		Type<?> type = this.variables.get(i).getType();
+		return type instanceof IntegerType || type instanceof BoolType;
+	}
+
+	double evaluate(double[] x) {
+		return this.template.root.distance(x, this.params);
+	}
+
+	/*
+	 * The number of rows of the work array of evaluate(xs, ...)
+	 */
+	int getSlots() {
+		return this.template.slots;
+	}
+
+	/*
+	 * Evaluates the points from, ..., to - 1 at once and stores their
+	 * distances in out. xs[d][k] is the value of variable d at point k; work
+	 * needs getSlots() rows as long as those of xs. Calls on disjoint ranges
+	 * can run concurrently on the same arrays.
+	 */
+	void evaluate(double[][] xs, int from, int to, double[][] work, double[] out) {
+		double[] res = this.template.root.distanceAll(xs, this.params, work, from, to);
+		System.arraycopy(res, from, out, from, to - from);
+	}
+
+	/*
+	 * Stores x as values of the types of the variables
+	 */
+	void toValuation(double[] x, Valuation val) {
+		for(int i = 0; i < this.variables.size(); i++) {
+			Variable<?> v = this.variables.get(i);
+			Type<?> type = v.getType();
+			Object value;
+			if(type instanceof SInt32Type)
+				value = (int)Math.rint(x[i]);
+			else if(type instanceof SInt64Type)
+				value = (long)Math.rint(x[i]);
+			else if(type instanceof FloatType)
+				value = (float)x[i];
+			else if(type instanceof BoolType)
+				value = x[i] != 0;
+			else
+				value = x[i];
+			ValuationUtil.setValue(val, v, value);
+		}
+	}
+
+	/*
+	 * The structure of a formula without the names of its variables and the
+	 * values of its numeric constants. Variables and constants are numbered in
+	 * the order they are first met in a pre-order walk.
+	 */
+	static final class Shape {
+		private final Map<Variable<?>, Integer> variables = new LinkedHashMap<>();
+		private final Map<Expression<?>, Integer> constants = new IdentityHashMap<>();
+		private final List<Double> params = new ArrayList<>();
+		private final StringBuilder key = new StringBuilder();
+
+		Shape(Expression<?> f) {
+			walk(f);
+		}
+
+		private void walk(Expression<?> e) {
+			this.key.append(e.getClass().getSimpleName());
+			if(e instanceof Variable) {
+				Variable<?> v = (Variable<?>)e;
+				Integer i = this.variables.get(v);
+				if(i == null) {
+					i = this.variables.size();
+					this.variables.put(v, i);
+				}
+				this.key.append(i).append(':').append(v.getType().getName());
+				return;
+			} else if(e instanceof Constant) {
+				Object v = ((Constant<?>)e).getValue();
+				this.key.append(':').append(e.getType().getName());
+				if(v instanceof Number) {
+					Integer i = this.constants.get(e);
+					if(i == null) {
+						i = this.params.size();
+						this.constants.put(e, i);
+						this.params.add(((Number)v).doubleValue());
+					}
+					this.key.append('#').append(i);
+				} else {
+					this.key.append('=').append(v);
+				}
+				return;
+			} else if(e instanceof NumericBooleanExpression) {
+				this.key.append(((NumericBooleanExpression)e).getComparator());
+			} else if(e instanceof NumericCompound) {
+				NumericCompound<?> nc = (NumericCompound<?>)e;
+				this.key.append(nc.getOperator()).append(':').append(nc.getType().getName());
+			} else if(e instanceof PropositionalCompound) {
+				this.key.append(((PropositionalCompound)e).getOperator());
+			} else if(e instanceof FunctionExpression) {
+				this.key.append(((FunctionExpression<?>)e).getFunction().getName());
+			} else if(e instanceof CastExpression) {
+				this.key.append(':').append(e.getType().getName());
+			}
+			this.key.append('(');
+			for(Expression<?> c : e.getChildren())
+				walk(c);
+			this.key.append(')');
+		}
+
+		String getKey() {
+			return this.key.toString();
+		}
+
+		List<Variable<?>> getVariables() {
+			return new ArrayList<>(this.variables.keySet());
+		}
+
+		double[] getParams() {
+			double[] res = new double[this.params.size()];
+			for(int i = 0; i < res.length; i++)
+				res[i] = this.params.get(i);
+			return res;
+		}
+	}
+
+	private static final class Compiler {
+		final Shape shape;
+
+		Compiler(Shape shape) {
+			this.shape = shape;
+		}
+
+		int index(Variable<?> v) {
+			return this.shape.variables.get(v);
+		}
+
+		//the number of slots handed out
+		int slots;
+
+		<N extends Node> N slot(N n) {
+			//variables are read from xs directly
+			if(n.slot < 0 && !(n instanceof Var))
+				n.slot = this.slots++;
+			return n;
+		}
+
+		/*
+		 * The distance of e, or of !e if negated
+		 */
+		Cond cond(Expression<Boolean> e, boolean negated) {
+			return slot(compileCond(e, negated));
+		}
+
+		Term term(Expression<?> e) {
+			return slot(compileTerm(e));
+		}
+
+		private Cond compileCond(Expression<Boolean> e, boolean negated) {
+			if(e instanceof Negation) {
+				return cond(((Negation)e).getNegated(), !negated);
+			} else if(e instanceof NumericBooleanExpression) {
+				NumericBooleanExpression nbe = (NumericBooleanExpression)e;
+				return new Cmp(term(nbe.getLeft()), nbe.getComparator(), term(nbe.getRight()), negated);
+			} else if(e instanceof PropositionalCompound) {
+				PropositionalCompound pc = (PropositionalCompound)e;
+				Expression<Boolean> l = pc.getLeft(), r = pc.getRight();
+				switch(pc.getOperator()) {
+				case AND:
+					return negated ? new Or(cond(l, true), cond(r, true)) : new And(cond(l, false), cond(r, false));
+				case OR:
+					return negated ? new And(cond(l, true), cond(r, true)) : new Or(cond(l, false), cond(r, false));
+				case IMPLY:
+					return negated ? new And(cond(l, false), cond(r, true)) : new Or(cond(l, true), cond(r, false));
+				case EQUIV:
+				case XOR:
+					//xor is a negated equivalence
+					boolean same = (pc.getOperator() == LogicalOperator.EQUIV) != negated;
+					return new Or(slot(new And(cond(l, false), cond(r, !same))), slot(new And(cond(l, true), cond(r, same))));
+				default:
+					throw new UnsupportedOperationException("Cannot compile logical operator " + pc.getOperator());
+				}
+			} else if(e instanceof Variable) {
+				return new BoolVar(index((Variable<?>)e), !negated);
+			} else if(e instanceof Constant) {
+				return new BoolConst(((Constant<Boolean>)e).getValue() != negated);
+			}
+			throw new UnsupportedOperationException("Cannot compile " + e.getClass().getSimpleName());
+		}
+
+		private Term compileTerm(Expression<?> e) {
+			if(e instanceof Variable) {
+				return new Var(index((Variable<?>)e));
+			} else if(e instanceof Constant) {
+				Integer i = this.shape.constants.get(e);
+				if(i != null)
+					return new Param(i);
+			} else if(e instanceof UnaryMinus) {
+				return new Neg(term(((UnaryMinus<?>)e).getNegated()));
+			} else if(e instanceof NumericCompound) {
+				NumericCompound<?> nc = (NumericCompound<?>)e;
+				Term l = term(nc.getLeft()), r = term(nc.getRight());
+				boolean integral = nc.getType() instanceof IntegerType;
+				switch(nc.getOperator()) {
+				case PLUS: return new Add(l, r);
+				case MINUS: return new Sub(l, r);
+				case MUL: return new Mul(l, r);
+				case DIV: return integral ? new IntDiv(l, r) : new Div(l, r);
+				case REM: return new Rem(l, r);
+				default: break;
+				}
+			} else if(e instanceof CastExpression) {
+				CastExpression<?, ?> cast = (CastExpression<?, ?>)e;
+				Term t = term(cast.getCasted());
+				Type<?> to = cast.getType();
+				if(to instanceof SInt32Type || to instanceof SInt64Type)
+					return new Trunc(t, to instanceof SInt32Type);
+				if(to instanceof FloatType)
+					return new ToFloat(t);
+				if(to instanceof DoubleType)
+					return t;
+			} else if(e instanceof FunctionExpression) {
+				FunctionExpression<?> fe = (FunctionExpression<?>)e;
+				Expression<?>[] args = fe.getArgs();
+				String name = fe.getFunction().getName();
+				if(args.length == 1) {
+					int op = Call.op(name);
+					if(op >= 0)
+						return new Call(op, term(args[0]));
+				} else if(args.length == 2 && name.equals("atan2")) {
+					return new Atan2(term(args[0]), term(args[1]));
+				} else if(args.length == 2 && name.equals("pow")) {
+					return new Pow(term(args[0]), term(args[1]));
+				}
+			}
+			throw new UnsupportedOperationException("Cannot compile " + e);
+		}
+	}
+
+	/*
+	 * Nodes. Every kind of node is its own final class, so the JIT can inline
+	 * the calls of nodes whose children are of a single kind.
+	 *
+	 * The batch methods evaluate the points from, ..., to - 1 of a swarm at
+	 * once, one node at a time: xs[d][k] is the value of variable d at point k
+	 * and a node writes its values to the row of work given by its slot. The
+	 * loops over the points of the arithmetic nodes are simple enough for the
+	 * JIT to vectorize.
+	 */
+
+	abstract static class Node {
+		//row of the work array, assigned by the compiler
+		int slot = -1;
+	}
+
+	abstract static class Term extends Node {
+		abstract double eval(double[] x, double[] p);
+		abstract double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to);
+	}
+
+	abstract static class Cond extends Node {
+		abstract double distance(double[] x, double[] p);
+		abstract double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to);
+	}
+
+	static final class Var extends Term {
+		final int i;
+		Var(int i) { this.i = i; }
+		@Override
+		double eval(double[] x, double[] p) { return x[this.i]; }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) { return xs[this.i]; }
+	}
+
+	static final class Param extends Term {
+		final int i;
+		Param(int i) { this.i = i; }
+		@Override
+		double eval(double[] x, double[] p) { return p[this.i]; }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] o = w[this.slot];
+			Arrays.fill(o, from, to, p[this.i]);
+			return o;
+		}
+	}
+
+	static final class Neg extends Term {
+		final Term t;
+		Neg(Term t) { this.t = t; }
+		@Override
+		double eval(double[] x, double[] p) { return -this.t.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.t.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = -a[k];
+			return o;
+		}
+	}
+
+	static final class Add extends Term {
+		final Term l, r;
+		Add(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return this.l.eval(x, p) + this.r.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] + b[k];
+			return o;
+		}
+	}
+
+	static final class Sub extends Term {
+		final Term l, r;
+		Sub(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return this.l.eval(x, p) - this.r.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] - b[k];
+			return o;
+		}
+	}
+
+	static final class Mul extends Term {
+		final Term l, r;
+		Mul(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return this.l.eval(x, p) * this.r.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] * b[k];
+			return o;
+		}
+	}
+
+	static final class Div extends Term {
+		final Term l, r;
+		Div(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return this.l.eval(x, p) / this.r.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] / b[k];
+			return o;
+		}
+	}
+
+	//division by zero has no value, which fails every comparison
+	static final class IntDiv extends Term {
+		final Term l, r;
+		IntDiv(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) {
+			return div(this.l.eval(x, p), this.r.eval(x, p));
+		}
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = div(a[k], b[k]);
+			return o;
+		}
+		private static double div(double a, double b) {
+			return (b == 0) ? Double.NaN : (double)(long)(a / b);
+		}
+	}
+
+	static final class Rem extends Term {
+		final Term l, r;
+		Rem(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return this.l.eval(x, p) % this.r.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] % b[k];
+			return o;
+		}
+	}
+
+	static final class Trunc extends Term {
+		final Term t;
+		final boolean toInt;
+		Trunc(Term t, boolean toInt) { this.t = t; this.toInt = toInt; }
+		@Override
+		double eval(double[] x, double[] p) {
+			double v = this.t.eval(x, p);
+			return this.toInt ? (double)(int)v : (double)(long)v;
+		}
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.t.evalAll(xs, p, w, from, to), o = w[this.slot];
+			if(this.toInt) {
+				for(int k = from; k < to; k++)
+					o[k] = (int)a[k];
+			} else {
+				for(int k = from; k < to; k++)
+					o[k] = (long)a[k];
+			}
+			return o;
+		}
+	}
+
+	static final class ToFloat extends Term {
+		final Term t;
+		ToFloat(Term t) { this.t = t; }
+		@Override
+		double eval(double[] x, double[] p) { return (float)this.t.eval(x, p); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.t.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = (float)a[k];
+			return o;
+		}
+	}
+
+	static final class Call extends Term {
+		static final String[] NAMES = { "sin", "cos", "tan", "asin", "acos", "atan",
+		    "exp", "log", "log10", "sqrt", "round" };
+
+		final int op;
+		final Term t;
+		Call(int op, Term t) { this.op = op; this.t = t; }
+
+		static int op(String name) {
+			for(int i = 0; i < NAMES.length; i++) {
+				if(NAMES[i].equals(name))
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		double eval(double[] x, double[] p) {
+			return apply(this.op, this.t.eval(x, p));
+		}
+
+		//one loop per function, so the switch is not taken for every point
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.t.evalAll(xs, p, w, from, to), o = w[this.slot];
+			switch(this.op) {
+			case 0:
+				for(int k = from; k < to; k++)
+					o[k] = Math.sin(a[k]);
+				break;
+			case 1:
+				for(int k = from; k < to; k++)
+					o[k] = Math.cos(a[k]);
+				break;
+			case 9:
+				for(int k = from; k < to; k++)
+					o[k] = Math.sqrt(a[k]);
+				break;
+			default:
+				for(int k = from; k < to; k++)
+					o[k] = apply(this.op, a[k]);
+				break;
+			}
+			return o;
+		}
+
+		private static double apply(int op, double v) {
+			switch(op) {
+			case 0: return Math.sin(v);
+			case 1: return Math.cos(v);
+			case 2: return Math.tan(v);
+			case 3: return Math.asin(v);
+			case 4: return Math.acos(v);
+			case 5: return Math.atan(v);
+			case 6: return Math.exp(v);
+			case 7: return Math.log(v);
+			case 8: return Math.log10(v);
+			case 9: return Math.sqrt(v);
+			default: return Math.round(v);
+			}
+		}
+	}
+
+	static final class Atan2 extends Term {
+		final Term l, r;
+		Atan2(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return Math.atan2(this.l.eval(x, p), this.r.eval(x, p)); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = Math.atan2(a[k], b[k]);
+			return o;
+		}
+	}
+
+	static final class Pow extends Term {
+		final Term l, r;
+		Pow(Term l, Term r) { this.l = l; this.r = r; }
+		@Override
+		double eval(double[] x, double[] p) { return Math.pow(this.l.eval(x, p), this.r.eval(x, p)); }
+		@Override
+		double[] evalAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = Math.pow(a[k], b[k]);
+			return o;
+		}
+	}
+
+	static final class Cmp extends Cond {
+		final Term l, r;
+		final NumericComparator cmp;
+		//the comparison that has to hold, i.e., cmp or its negation
+		final NumericComparator goal;
+		final boolean negated;
+
+		Cmp(Term l, NumericComparator cmp, Term r, boolean negated) {
+			this.l = l;
+			this.r = r;
+			this.cmp = cmp;
+			this.negated = negated;
+			this.goal = negated ? negate(cmp) : cmp;
+		}
+
+		@Override
+		double distance(double[] x, double[] p) {
+			return distance(this.l.eval(x, p), this.r.eval(x, p));
+		}
+
+		@Override
+		double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.evalAll(xs, p, w, from, to), b = this.r.evalAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = distance(a[k], b[k]);
+			return o;
+		}
+
+		private double distance(double a, double b) {
+			boolean holds;
+			switch(this.cmp) {
+			case EQ: holds = a == b; break;
+			case NE: holds = a != b; break;
+			case LT: holds = a < b; break;
+			case LE: holds = a <= b; break;
+			case GT: holds = a > b; break;
+			default: holds = a >= b; break;
+			}
+			if(holds != this.negated)
+				return 0;
+			double d = Math.abs(a - b);
+			if(d != d)
+				return PENALTY;
+			switch(this.goal) {
+			case EQ:
+			case LE:
+			case GE:
+				return d;
+			case NE:
+				return K;
+			default:
+				return d + K;
+			}
+		}
+
+		private static NumericComparator negate(NumericComparator cmp) {
+			switch(cmp) {
+			case EQ: return NumericComparator.NE;
+			case NE: return NumericComparator.EQ;
+			case LT: return NumericComparator.GE;
+			case LE: return NumericComparator.GT;
+			case GT: return NumericComparator.LE;
+			default: return NumericComparator.LT;
+			}
+		}
+	}
+
+	static final class And extends Cond {
+		final Cond l, r;
+		And(Cond l, Cond r) { this.l = l; this.r = r; }
+		@Override
+		double distance(double[] x, double[] p) { return this.l.distance(x, p) + this.r.distance(x, p); }
+		@Override
+		double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.distanceAll(xs, p, w, from, to), b = this.r.distanceAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = a[k] + b[k];
+			return o;
+		}
+	}
+
+	static final class Or extends Cond {
+		final Cond l, r;
+		Or(Cond l, Cond r) { this.l = l; this.r = r; }
+		@Override
+		double distance(double[] x, double[] p) { return Math.min(this.l.distance(x, p), this.r.distance(x, p)); }
+		@Override
+		double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = this.l.distanceAll(xs, p, w, from, to), b = this.r.distanceAll(xs, p, w, from, to), o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = Math.min(a[k], b[k]);
+			return o;
+		}
+	}
+
+	static final class BoolVar extends Cond {
+		final int i;
+		final boolean expected;
+		BoolVar(int i, boolean expected) { this.i = i; this.expected = expected; }
+		@Override
+		double distance(double[] x, double[] p) { return ((x[this.i] != 0) == this.expected) ? 0 : K; }
+		@Override
+		double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] a = xs[this.i], o = w[this.slot];
+			for(int k = from; k < to; k++)
+				o[k] = ((a[k] != 0) == this.expected) ? 0 : K;
+			return o;
+		}
+	}
+
+	static final class BoolConst extends Cond {
+		final boolean value;
+		BoolConst(boolean value) { this.value = value; }
+		@Override
+		double distance(double[] x, double[] p) { return this.value ? 0 : PENALTY; }
+		@Override
+		double[] distanceAll(double[][] xs, double[] p, double[][] w, int from, int to) {
+			double[] o = w[this.slot];
+			Arrays.fill(o, from, to, this.value ? 0 : PENALTY);
+			return o;
+		}
+	}
+}
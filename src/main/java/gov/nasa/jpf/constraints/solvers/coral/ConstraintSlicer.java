@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+/*
+ * Splits a conjunction into groups of conjuncts that do not share variables.
+ * The groups can be solved independently and their models merged.
+ */
+final class ConstraintSlicer {
+
+	private ConstraintSlicer() { }
+
+	/*
+	 * Returns the components in the order of their first conjunct. Conjuncts
+	 * without variables form a component of their own each.
+	 */
+	static List<Expression<Boolean>> slice(Expression<Boolean> expr) {
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		ExpressionKey.flattenConjunction(expr, conjuncts);
+		List<Expression<Boolean>> components = new ArrayList<>();
+		if(conjuncts.size() < 2) {
+			components.add(expr);
+			return components;
+		}
+
+		//union-find over conjunct indices, joined through the variables they share
+		int[] parent = new int[conjuncts.size()];
+		Map<Variable<?>, Integer> owner = new HashMap<>();
+		for(int i = 0; i < conjuncts.size(); i++) {
+			parent[i] = i;
+			Set<Variable<?>> vars = ExpressionUtil.freeVariables(conjuncts.get(i));
+			for(Variable<?> v : vars) {
+				Integer other = owner.get(v);
+				if(other == null)
+					owner.put(v, i);
+				else
+					union(parent, other, i);
+			}
+		}
+
+		Map<Integer, List<Expression<Boolean>>> groups = new LinkedHashMap<>();
+		for(int i = 0; i < conjuncts.size(); i++) {
+			int root = find(parent, i);
+			List<Expression<Boolean>> group = groups.get(root);
+			if(group == null) {
+				group = new ArrayList<>();
+				groups.put(root, group);
+			}
+			group.add(conjuncts.get(i));
+		}
+		if(groups.size() == 1) {
+			components.add(expr);
+			return components;
+		}
+		for(List<Expression<Boolean>> group : groups.values())
+			components.add(ExpressionUtil.and(group));
+		return components;
+	}
+
+	private static int find(int[] parent, int i) {
+		while(parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parent, int a, int b) {
+		int ra = find(parent, a);
+		int rb = find(parent, b);
+		if(ra != rb)
+			parent[Math.max(ra, rb)] = Math.min(ra, rb);
+	}
+}
@@ -18,10 +18,32 @@ package gov.nasa.jpf.constraints.solvers.coral;
 public enum CoralConfig {
 		SEED("coral.seed"),
 		ITERATIONS("coral.iterations"),
+		ADAPTIVE_ITERATIONS("coral.iterations.adaptive"),
+		MIN_ITERATIONS("coral.iterations.min"),
+		MAX_ITERATIONS("coral.iterations.max"),
 		SOLVER_KIND("coral.solver"),
 		OPTIMIZE("coral.optimize"),
 		INTERVAL_SOLVER("coral.interval_solver"),
-		INTERVAL_SOLVER_PATH("coral.interval_solver.path");
+		INTERVAL_SOLVER_PATH("coral.interval_solver.path"),
+		INTERVAL_SOLVER_WORKERS("coral.interval_solver.workers"),
+		PORTFOLIO("coral.portfolio"),
+		PORTFOLIO_THREADS("coral.portfolio.threads"),
+		TIMEOUT("coral.timeout.ms"),
+		CACHE_SIZE("coral.cache.size"),
+		MODEL_POOL_SIZE("coral.model_pool.size"),
+		SLICING("coral.slicing"),
+		SLICING_PARALLELISM("coral.slicing.parallelism"),
+		METRICS_JMX("coral.metrics.jmx"),
+		RETRIES("coral.retry.attempts"),
+		RETRY_ITERATION_FACTOR("coral.retry.iteration_factor"),
+		RETRY_SOLVERS("coral.retry.solvers"),
+		RETRY_BUDGET("coral.retry.budget.ms"),
+		LINEAR_PRESOLVE("coral.presolve.linear"),
+		INTERVAL_PRESOLVE("coral.presolve.intervals"),
+		ASYNC_THREADS("coral.async.threads"),
+		NATIVE_PSO("coral.pso.native"),
+		SWARM_SIZE("coral.pso.swarm_size"),
+		BATCHED_FITNESS("coral.pso.batched");
 		
 		private final String opt;
 		
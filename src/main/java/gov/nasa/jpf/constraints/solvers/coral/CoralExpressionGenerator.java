@@ -17,7 +17,9 @@ package gov.nasa.jpf.constraints.solvers.coral;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -67,9 +69,12 @@ import gov.nasa.jpf.constraints.types.BuiltinTypes.BoolType;
 public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object, Void> {
   
 	private HashMap<Variable<?>, SymLiteral> vars;
+	//translations of the subexpressions seen so far, see translateShared()
+	private final IdentityHashMap<Expression<?>, Object> translated = new IdentityHashMap<>();
+	private final HashMap<Node, Object> nodes = new HashMap<>();
 	
+	//Coral's var counter is reset by CoralRuntime before translating
 	public CoralExpressionGenerator() {
-		Util.resetID(); //resets Coral's var counter...
 		this.vars = new HashMap<>();
 	}
 	
@@ -77,12 +82,131 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 		return this.vars;
 	}
 
+	/*
+	 * Drops the literals of vars. The shared translations may contain them,
+	 * so those are dropped as well; later translations build new nodes.
+	 */
+	void forget(Collection<Variable<?>> vars) {
+		if(vars.isEmpty())
+			return;
+		this.vars.keySet().removeAll(vars);
+		forgetShared();
+	}
+
+	/*
+	 * Drops the shared translations, but keeps the literals
+	 */
+	void forgetShared() {
+		this.translated.clear();
+		this.nodes.clear();
+	}
+
 
 	public PC generateAssertion(Expression<Boolean> e) {
-		List<SymBool> constraints = new LinkedList<>(Arrays.asList((SymBool)visit(e, null)));
+		List<SymBool> constraints = new LinkedList<>(Arrays.asList(translate(e)));
 		return new PC(constraints);
 	}
 	
+	public SymBool translate(Expression<Boolean> e) {
+		return (SymBool)translateShared(e);
+	}
+	
+	/*
+	 * Translates a subexpression. Subexpressions that are the same object or
+	 * that have the same structure share a single symlib node, so a formula
+	 * is translated into a DAG.
+	 */
+	private Object translateShared(Expression<?> e) {
+		Object res = this.translated.get(e);
+		if(res != null)
+			return res;
+		Node node = null;
+		if(!(e instanceof Variable)) {
+			Object label = labelOf(e);
+			if(label != null) {
+				Expression<?>[] children = e.getChildren();
+				Object[] translatedChildren = new Object[children.length];
+				for(int i = 0; i < children.length; i++)
+					translatedChildren[i] = translateShared(children[i]);
+				node = new Node(e.getClass(), label, translatedChildren);
+				res = this.nodes.get(node);
+			}
+		}
+		if(res == null) {
+			//children are already translated, so this only builds the node itself
+			res = e.accept(this, null);
+			if(node != null)
+				this.nodes.put(node, res);
+		}
+		this.translated.put(e, res);
+		return res;
+	}
+	
+	/*
+	 * What distinguishes e from other expressions of its class with the same
+	 * children, or null if this is unknown
+	 */
+	private static Object labelOf(Expression<?> e) {
+		if(e instanceof Constant)
+			return Arrays.asList(e.getType(), ((Constant<?>)e).getValue());
+		else if(e instanceof NumericCompound)
+			return ((NumericCompound<?>)e).getOperator();
+		else if(e instanceof NumericBooleanExpression)
+			return ((NumericBooleanExpression)e).getComparator();
+		else if(e instanceof PropositionalCompound)
+			return ((PropositionalCompound)e).getOperator();
+		else if(e instanceof BitvectorExpression)
+			return ((BitvectorExpression<?>)e).getOperator();
+		else if(e instanceof FunctionExpression)
+			return ((FunctionExpression<?>)e).getFunction().getName();
+		else if(e instanceof CastExpression)
+			return e.getType();
+		else if(e instanceof Negation || e instanceof UnaryMinus)
+			return e.getClass();
+		return null;
+	}
+	
+	/*
+	 * Key of a translated node: its kind and the identities of the
+	 * translations of its children
+	 */
+	private static final class Node {
+		private final Class<?> kind;
+		private final Object label;
+		private final Object[] children;
+		private final int hash;
+		
+		Node(Class<?> kind, Object label, Object[] children) {
+			this.kind = kind;
+			this.label = label;
+			this.children = children;
+			int h = kind.hashCode() * 31 + label.hashCode();
+			for(Object c : children)
+				h = h * 31 + System.identityHashCode(c);
+			this.hash = h;
+		}
+		
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Node))
+				return false;
+			Node n = (Node)obj;
+			if(this.hash != n.hash || this.kind != n.kind || !this.label.equals(n.label) || 
+			    this.children.length != n.children.length)
+				return false;
+			for(int i = 0; i < this.children.length; i++) {
+				if(this.children[i] != n.children[i])
+					return false;
+			}
+			return true;
+		}
+	}
+	
 	@Override
 	public <E> Object visit(Constant<E> c, Void data) {
 		Type<E> type = c.getType();
@@ -107,14 +231,14 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 	
 	@Override
 	public Object visit(Negation n, Void data) {
-	    SymBool negatedExpr = (SymBool)visit(n.getNegated());
+	    SymBool negatedExpr = (SymBool)translateShared(n.getNegated());
 	    return Util.neg(negatedExpr);
   }
 	
 	@Override
 	public Object visit(NumericBooleanExpression n, Void data) {
-		Object left = visit(n.getLeft(), null);
-		Object right = visit(n.getRight(), null);
+		Object left = translateShared(n.getLeft());
+		Object right = translateShared(n.getRight());
 		NumericComparator cmp = n.getComparator();
 
     //type checking
@@ -238,9 +362,9 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 	    Type<E> tt = cast.getType();
 	    
 	    if(ft.equals(tt))
-	      return visit(casted, null);
+	      return translateShared(casted);
 	    
-	    Object castedExpr = visit(casted, null);
+	    Object castedExpr = translateShared(casted);
 	    if(tt instanceof IntegerType<?>) {
 	    	return Util.createASInt((SymNumber)castedExpr);
 	    } else if(tt instanceof RealType<?>) {
@@ -278,8 +402,8 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 	public <E> Object visit(NumericCompound<E> n, Void data) {
 		Object left = null, right = null;
 
-		left = visit(n.getLeft());
-		right = visit(n.getRight());
+		left = translateShared(n.getLeft());
+		right = translateShared(n.getRight());
 		
 		//type checking
 		//We always convert to double types if left and right hand sides are incompatible...
@@ -395,8 +519,8 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 	@Override
 	public Object visit(PropositionalCompound n, Void data) {
 		SymBool left = null, right = null;         
-		left = (SymBool)visit(n.getLeft(), null);
-		right = (SymBool)visit(n.getRight(), null);
+		left = (SymBool)translateShared(n.getLeft());
+		right = (SymBool)translateShared(n.getRight());
 		switch(n.getOperator()) {
 		case AND:
 			return Util.and(left, right);
@@ -417,7 +541,7 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 
 		int i = 0;
 		for(Expression<?> exp : f.getArgs()) {
-			Object e = (Object)visit(exp);
+			Object e = (Object)translateShared(exp);
 			if(e instanceof SymDouble)
 				args[i++] = (SymDouble)e;
 			else if(e instanceof SymInt)
@@ -462,7 +586,7 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 	@Override
 	public <E> Object visit(UnaryMinus<E> n, Void data) {
 		Object negated = null;
-		negated = visit(n.getNegated(), null);
+		negated = translateShared(n.getNegated());
 		if(negated instanceof SymInt) {
 			return Util.mul(new SymIntConstant(-1), (SymInt)negated);
 		} else if(negated instanceof SymLong) {
@@ -484,8 +608,8 @@ public class CoralExpressionGenerator extends AbstractExpressionVisitor<Object,
 		//int: cmp
 		//long: logicalshiftright
 		
-		Object left = visit(bv.getLeft());
-		Object right = visit(bv.getRight());
+		Object left = translateShared(bv.getLeft());
+		Object right = translateShared(bv.getRight());
 		
 		//Type checking
 		if(!(left instanceof SymInt) && !(left instanceof SymLong))
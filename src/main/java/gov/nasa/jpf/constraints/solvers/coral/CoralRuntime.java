@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import symlib.Util;
+
+/*
+ * Coral keeps its configuration (coral.util.Config) and its symbol counter
+ * (symlib.Util) in static fields. Everything that touches either of them, i.e.,
+ * translating to symlib and running a Coral search, goes through here so that
+ * concurrent solves with different settings never observe each other's state.
+ */
+final class CoralRuntime {
+
+	/*
+	 * Literals created in a symbol space keep their ids for as long as no
+	 * other translation happened in between. resets counts how often this
+	 * was not the case; all literals of the space are invalid afterwards.
+	 */
+	static final class SymbolSpace {
+		private int resets = 0;
+
+		int getResets() {
+			return this.resets;
+		}
+	}
+
+	private static final ReentrantLock LOCK = new ReentrantLock();
+	private static SymbolSpace owner = null;
+
+	private CoralRuntime() { }
+
+	/*
+	 * Runs task with settings installed and a fresh symbol id space.
+	 */
+	static <T> T exclusive(CoralSettings settings, Callable<T> task) throws Exception {
+		return exclusive(settings, null, task);
+	}
+
+	/*
+	 * Runs task with settings installed. The ids of space are only reset if
+	 * another space was used since the last task of space, or if space is null.
+	 */
+	static <T> T exclusive(CoralSettings settings, SymbolSpace space, Callable<T> task) throws Exception {
+		LOCK.lockInterruptibly();
+		try {
+			return run(settings, space, task);
+		} finally {
+			LOCK.unlock();
+		}
+	}
+
+	/*
+	 * Like exclusive(settings, space, task), but gives up with a TimeoutException if
+	 * the lock is not available before deadline (in terms of System.nanoTime()).
+	 * Coral's searches ignore interrupts, so task runs on the calling thread and
+	 * has to watch the deadline itself; the lock is always released when this
+	 * returns.
+	 */
+	static <T> T exclusive(CoralSettings settings, SymbolSpace space, Callable<T> task, long deadline) throws Exception {
+		if(!LOCK.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+			throw new TimeoutException("Coral is busy");
+		try {
+			return run(settings, space, task);
+		} finally {
+			LOCK.unlock();
+		}
+	}
+
+	private static <T> T run(CoralSettings settings, SymbolSpace space, Callable<T> task) throws Exception {
+		settings.install();
+		if(space == null || owner != space) {
+			Util.resetID();
+			owner = space;
+			if(space != null)
+				space.resets++;
+		}
+		return task.call();
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import coral.solvers.SolverKind;
+import coral.util.Config;
+import gov.nasa.jpf.constraints.solvers.coral.IntervalSolver.Solver;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+
+/*
+ * Immutable snapshot of the options of a single solver. Coral only knows the
+ * JVM-wide coral.util.Config, so a snapshot is installed right before each
+ * search while the Coral lock is held (see CoralRuntime).
+ */
+final class CoralSettings {
+
+	//Coral's own defaults, restored for every option a snapshot does not set
+	private static final int DEFAULT_ITERATIONS_PSO = Config.nIterationsPSO;
+	private static final int DEFAULT_ITERATIONS_RANDOM = Config.nIterationsRANDOM;
+	private static final int DEFAULT_ITERATIONS_AVM = Config.nIterationsAVM;
+	private static final boolean DEFAULT_ENABLE_INTERVAL = Config.enableIntervalBasedSolver;
+	private static final boolean DEFAULT_SIMPLIFY_INTERVAL = Config.simplifyUsingIntervalSolver;
+
+	private final long seed;
+	private final int iterations;
+	private final SolverKind solverKind;
+	private final boolean optimize;
+	private final IntervalSolver intervalSolver;
+	private final long timeoutMillis;
+
+	CoralSettings(long seed,
+				  int iterations,
+				  SolverKind solverKind,
+				  boolean optimize,
+				  IntervalSolver intervalSolver,
+				  long timeoutMillis) {
+		Solver iSolver = intervalSolver.getIntervalSolver();
+		if(iSolver != Solver.NONE && iSolver != Solver.REALPAVER && iSolver != Solver.ICOS)
+			throw new CoralConfigurationException("Unsupported interval solver!");
+		this.seed = seed;
+		this.iterations = iterations;
+		this.solverKind = solverKind;
+		this.optimize = optimize;
+		this.intervalSolver = intervalSolver;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	public int getIterations() {
+		return this.iterations;
+	}
+
+	/*
+	 * The iteration budget Coral will actually use, taking its defaults into
+	 * account, or -1 if the solver kind does not have one
+	 */
+	int getEffectiveIterations() {
+		if(this.iterations > 0)
+			return this.iterations;
+		if(this.solverKind.equals(SolverKind.PSO_OPT4J))
+			return DEFAULT_ITERATIONS_PSO;
+		else if(this.solverKind.equals(SolverKind.RANDOM))
+			return DEFAULT_ITERATIONS_RANDOM;
+		else if(this.solverKind.equals(SolverKind.AVM))
+			return DEFAULT_ITERATIONS_AVM;
+		return -1;
+	}
+
+	public SolverKind getSolverKind() {
+		return this.solverKind;
+	}
+
+	public boolean isOptimize() {
+		return this.optimize;
+	}
+
+	public IntervalSolver getIntervalSolver() {
+		return this.intervalSolver;
+	}
+
+	/*
+	 * Wall-clock budget of a single search in ms, <= 0 means no deadline
+	 */
+	public long getTimeoutMillis() {
+		return this.timeoutMillis;
+	}
+
+	CoralSettings withSeed(long seed) {
+		return new CoralSettings(seed, this.iterations, this.solverKind, this.optimize, this.intervalSolver, this.timeoutMillis);
+	}
+
+	CoralSettings withSolverKind(SolverKind solverKind) {
+		return new CoralSettings(this.seed, this.iterations, solverKind, this.optimize, this.intervalSolver, this.timeoutMillis);
+	}
+
+	CoralSettings withIterations(int iterations) {
+		return new CoralSettings(this.seed, iterations, this.solverKind, this.optimize, this.intervalSolver, this.timeoutMillis);
+	}
+
+	CoralSettings withTimeoutMillis(long timeoutMillis) {
+		return new CoralSettings(this.seed, this.iterations, this.solverKind, this.optimize, this.intervalSolver, timeoutMillis);
+	}
+
+	/*
+	 * Writes this snapshot to coral.util.Config. Must only be called while
+	 * holding the Coral lock.
+	 */
+	void install() {
+		Config.seed = this.seed;
+
+		Solver iSolver = this.intervalSolver.getIntervalSolver();
+		//persistent workers are queried before the search, not by Coral
+		if(iSolver != Solver.NONE && !this.intervalSolver.usesWorkers()) {
+			Config.intervalSolver = iSolver.toString();
+			Config.enableIntervalBasedSolver = true;
+			if(iSolver == Solver.REALPAVER)
+				Config.realPaverLocation = this.intervalSolver.getPath();
+			else
+				Config.icosLocation = this.intervalSolver.getPath();
+			Config.simplifyUsingIntervalSolver = this.optimize;
+		} else {
+			Config.enableIntervalBasedSolver = DEFAULT_ENABLE_INTERVAL;
+			Config.simplifyUsingIntervalSolver = DEFAULT_SIMPLIFY_INTERVAL;
+		}
+
+		Config.nIterationsPSO = DEFAULT_ITERATIONS_PSO;
+		Config.nIterationsRANDOM = DEFAULT_ITERATIONS_RANDOM;
+		Config.nIterationsAVM = DEFAULT_ITERATIONS_AVM;
+		if(this.iterations > 0) {
+			if(this.solverKind.equals(SolverKind.PSO_OPT4J)) {
+				Config.nIterationsPSO = this.iterations;
+			} else if(this.solverKind.equals(SolverKind.RANDOM)) {
+				Config.nIterationsRANDOM = this.iterations;
+			} else if(this.solverKind.equals(SolverKind.AVM)) {
+				Config.nIterationsAVM = this.iterations;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "seed=" + this.seed +
+			   ", iterations=" + this.iterations +
+			   ", solver=" + this.solverKind +
+			   ", optimize=" + this.optimize +
+			   ", interval_solver=" + this.intervalSolver.getIntervalSolver() +
+			   ", timeout=" + this.timeoutMillis + "ms";
+	}
+}
@@ -15,38 +15,60 @@
  */
 package gov.nasa.jpf.constraints.solvers.coral;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import symlib.SymDouble;
-import symlib.SymFloat;
-import symlib.SymInt;
 import symlib.SymLiteral;
-import symlib.SymLong;
-import symlib.SymNumber;
-import symlib.Util;
 import coral.PC;
 import coral.solvers.Env;
 import coral.solvers.SolverKind;
-import coral.util.Config;
 import gov.nasa.jpf.constraints.api.ConstraintSolver;
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.SolverContext;
 import gov.nasa.jpf.constraints.api.Variable;
 import gov.nasa.jpf.constraints.api.Valuation;
 import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
 import gov.nasa.jpf.constraints.solvers.coral.IntervalSolver.Solver;
+import gov.nasa.jpf.constraints.solvers.coral.SolveResult.Reason;
+import gov.nasa.jpf.constraints.solvers.coral.SolverMetrics.Phase;
 import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
 import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralSolverException;
-import gov.nasa.jpf.constraints.types.BuiltinTypes.FloatType;
-import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt32Type;
-import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt64Type;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
 import gov.nasa.jpf.constraints.types.IntegerType;
 import gov.nasa.jpf.constraints.types.RealType;
-import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
 
-public class CoralSolver extends ConstraintSolver {
+/*
+ * Every CoralSolver has its own settings, so differently configured solvers
+ * can be used from several threads at once. Coral itself keeps its
+ * configuration and symbol ids in static fields, though, so all Coral
+ * translations and searches of the JVM take turns on one lock (see
+ * CoralRuntime): concurrent solvers, solveAsync, solveAll and portfolios do not
+ * run Coral searches in parallel. Only presolving and the built-in particle
+ * swarm (CoralSolverBuilder.nativePso) run concurrently; for more Coral
+ * throughput, use several JVMs.
+ */
+public class CoralSolver extends ConstraintSolver implements AutoCloseable {
 	
 	public static class CoralSolverBuilder {
 		private long seed = 464655;
@@ -54,6 +76,28 @@ public class CoralSolver extends ConstraintSolver {
 		private SolverKind solverKind = SolverKind.PSO_OPT4J;
 		private boolean optimize = true;
 		private IntervalSolver intervalSolver = new IntervalSolver(Solver.NONE);
+		private List<SolverKind> portfolio = new ArrayList<>();
+		private int portfolioThreads = Runtime.getRuntime().availableProcessors();
+		private long timeoutMillis = -1;
+		private int cacheSize = 0;
+		private int modelPoolSize = 0;
+		private boolean slicing = true;
+		private int slicingParallelism = 1;
+		private SolverMetrics metrics = SolverMetrics.NONE;
+		private int retries = 0;
+		private int retryIterationFactor = 2;
+		private List<SolverKind> retrySolvers = new ArrayList<>();
+		private long retryBudgetMillis = -1;
+		private boolean adaptiveIterations = false;
+		private int minIterations = 50;
+		private int maxIterations = 10000;
+		private boolean linearPresolve = true;
+		private boolean intervalPresolve = true;
+		private ExecutorService asyncExecutor = null;
+		private int asyncThreads = Runtime.getRuntime().availableProcessors();
+		private boolean nativePso = false;
+		private int swarmSize = 30;
+		private boolean batchedFitness = true;
 		
 		public CoralSolverBuilder() { }
 		
@@ -82,54 +126,279 @@ public class CoralSolver extends ConstraintSolver {
 			return this;
 		}
 		
+		public CoralSolverBuilder portfolio(List<SolverKind> portfolio) {
+			this.portfolio = new ArrayList<>(portfolio);
+			return this;
+		}
+		
+		public CoralSolverBuilder portfolio(SolverKind... portfolio) {
+			return portfolio(Arrays.asList(portfolio));
+		}
+		
+		public CoralSolverBuilder portfolioThreads(int portfolioThreads) {
+			this.portfolioThreads = portfolioThreads;
+			return this;
+		}
+		
+		public CoralSolverBuilder timeout(long timeoutMillis) {
+			this.timeoutMillis = timeoutMillis;
+			return this;
+		}
+		
+		public CoralSolverBuilder cacheSize(int cacheSize) {
+			this.cacheSize = cacheSize;
+			return this;
+		}
+		
+		public CoralSolverBuilder modelPoolSize(int modelPoolSize) {
+			this.modelPoolSize = modelPoolSize;
+			return this;
+		}
+		
+		public CoralSolverBuilder slicing(boolean slicing) {
+			this.slicing = slicing;
+			return this;
+		}
+		
+		public CoralSolverBuilder slicingParallelism(int slicingParallelism) {
+			this.slicingParallelism = slicingParallelism;
+			return this;
+		}
+		
+		public CoralSolverBuilder metrics(SolverMetrics metrics) {
+			this.metrics = (metrics != null) ? metrics : SolverMetrics.NONE;
+			return this;
+		}
+		
+		public CoralSolverBuilder retries(int retries) {
+			this.retries = retries;
+			return this;
+		}
+		
+		public CoralSolverBuilder retryIterationFactor(int retryIterationFactor) {
+			this.retryIterationFactor = retryIterationFactor;
+			return this;
+		}
+		
+		public CoralSolverBuilder retrySolvers(List<SolverKind> retrySolvers) {
+			this.retrySolvers = new ArrayList<>(retrySolvers);
+			return this;
+		}
+		
+		public CoralSolverBuilder retrySolvers(SolverKind... retrySolvers) {
+			return retrySolvers(Arrays.asList(retrySolvers));
+		}
+		
+		public CoralSolverBuilder retryBudget(long retryBudgetMillis) {
+			this.retryBudgetMillis = retryBudgetMillis;
+			return this;
+		}
+		
+		public CoralSolverBuilder adaptiveIterations(boolean adaptiveIterations) {
+			this.adaptiveIterations = adaptiveIterations;
+			return this;
+		}
+		
+		public CoralSolverBuilder minIterations(int minIterations) {
+			this.minIterations = minIterations;
+			return this;
+		}
+		
+		public CoralSolverBuilder maxIterations(int maxIterations) {
+			this.maxIterations = maxIterations;
+			return this;
+		}
+		
+		public CoralSolverBuilder linearPresolve(boolean linearPresolve) {
+			this.linearPresolve = linearPresolve;
+			return this;
+		}
+		
+		public CoralSolverBuilder intervalPresolve(boolean intervalPresolve) {
+			this.intervalPresolve = intervalPresolve;
+			return this;
+		}
+		
+		/*
+		 * Runs the queries of solveAsync. The executor is not shut down by the
+		 * solver.
+		 */
+		public CoralSolverBuilder asyncExecutor(ExecutorService asyncExecutor) {
+			this.asyncExecutor = asyncExecutor;
+			return this;
+		}
+		
+		/*
+		 * Size of the default executor of solveAsync
+		 */
+		public CoralSolverBuilder asyncThreads(int asyncThreads) {
+			this.asyncThreads = asyncThreads;
+			return this;
+		}
+		
+		/*
+		 * Replaces Coral's PSO_OPT4J searches by the built-in particle swarm
+		 * for formulas it can compile
+		 */
+		public CoralSolverBuilder nativePso(boolean nativePso) {
+			this.nativePso = nativePso;
+			return this;
+		}
+		
+		public CoralSolverBuilder swarmSize(int swarmSize) {
+			this.swarmSize = swarmSize;
+			return this;
+		}
+		
+		/*
+		 * Evaluates the fitness of all particles of the built-in swarm at once
+		 * instead of one particle at a time
+		 */
+		public CoralSolverBuilder batchedFitness(boolean batchedFitness) {
+			this.batchedFitness = batchedFitness;
+			return this;
+		}
+		
 		public CoralSolver buildCoralSolver() {
-			return new CoralSolver(this.seed,
-								   this.iterations,
-								   this.solverKind,
-								   this.optimize,
-								   this.intervalSolver);
+			return new CoralSolver(this);
 		}
 	}
 	
+	private final CoralSettings settings;
 	private final coral.solvers.Solver coralSolver;
+	private final Portfolio portfolio;
+	private final SolveCache cache;
+	private final ModelPool modelPool;
+	private final boolean slicing;
+	private final ForkJoinPool componentPool;
+	private final SolverMetrics metrics;
+	private final EscalationPolicy escalation;
+	private final AdaptiveBudget budget;
+	private final boolean linearPresolve;
+	private final boolean intervalPresolve;
+	private final IntervalWorkerPool intervalWorkers;
+	private final ExecutorService asyncExecutor;
+	private final boolean ownsAsyncExecutor;
+	private final FitnessCache fitnessCache;
+	private final ThreadLocal<ParticleSwarm> swarms;
+	private static final int FITNESS_CACHE_SIZE = 256;
+	//iterations of the first, and the minimum of every, bounded search when a timeout is set
+	private static final int CHUNK_ITERATIONS = 100;
 	private static final Logger logger = Logger.getLogger(CoralSolver.class.getName());
 	
-	private CoralSolver(long seed,
-						int iterations,
-						SolverKind solver,
-						boolean optimize,
-						IntervalSolver intervalSolver) {
-		
-		//Initialize Coral
-		Util.resetID(); //resets var counter
-		Config.seed = seed;
-		if(!intervalSolver.getIntervalSolver().equals(IntervalSolver.Solver.NONE)) {
-			Config.intervalSolver = intervalSolver.getIntervalSolver().toString();
-			Config.enableIntervalBasedSolver = true;
-			if(intervalSolver.getIntervalSolver().equals(IntervalSolver.Solver.REALPAVER)) {
-				Config.realPaverLocation = intervalSolver.getPath();
-			} else if (intervalSolver.getIntervalSolver().equals(IntervalSolver.Solver.ICOS)) {
-				Config.icosLocation = intervalSolver.getPath();
-			} else {
-				throw new CoralConfigurationException("Unsupported interval solver!");
+	private CoralSolver(CoralSolverBuilder builder) {
+		this.settings = new CoralSettings(builder.seed,
+										  builder.iterations,
+										  builder.solverKind,
+										  builder.optimize,
+										  builder.intervalSolver,
+										  builder.timeoutMillis);
+		this.coralSolver = this.settings.getSolverKind().get();
+		if(builder.portfolioThreads < 1)
+			throw new CoralConfigurationException("Portfolio needs at least one thread");
+		if(builder.slicingParallelism < 1)
+			throw new CoralConfigurationException("Slicing parallelism must be at least 1");
+		if(builder.asyncExecutor == null && builder.asyncThreads < 1)
+			throw new CoralConfigurationException("Asynchronous solving needs at least one thread");
+		if(builder.nativePso && builder.swarmSize < 1)
+			throw new CoralConfigurationException("Swarm needs at least one particle");
+		this.escalation = new EscalationPolicy(builder.retries, 
+		    builder.retryIterationFactor, builder.retrySolvers, builder.retryBudgetMillis);
+		this.budget = builder.adaptiveIterations ? 
+		    new AdaptiveBudget(builder.minIterations, builder.maxIterations) : null;
+		this.cache = (builder.cacheSize > 0) ? new SolveCache(builder.cacheSize) : null;
+		this.modelPool = (builder.modelPoolSize > 0) ? new ModelPool(builder.modelPoolSize) : null;
+		this.slicing = builder.slicing;
+		this.metrics = builder.metrics;
+		this.linearPresolve = builder.linearPresolve;
+		this.intervalPresolve = builder.intervalPresolve;
+		this.fitnessCache = builder.nativePso ? new FitnessCache(FITNESS_CACHE_SIZE) : null;
+		final int swarmSize = builder.swarmSize;
+		final boolean batched = builder.batchedFitness;
+		//searches of the same thread reuse the arrays of the swarm
+		this.swarms = !builder.nativePso ? null : new ThreadLocal<ParticleSwarm>() {
+			@Override
+			protected ParticleSwarm initialValue() {
+				return new ParticleSwarm(swarmSize, batched);
 			}
-			Config.simplifyUsingIntervalSolver = optimize ? true : false;
-		}
-		if(iterations > 0) {
-			if(solver.equals(SolverKind.PSO_OPT4J)) {
-				Config.nIterationsPSO = iterations;
-			} else if(solver.equals(SolverKind.RANDOM)) {
-				Config.nIterationsRANDOM = iterations;
-			} else if(solver.equals(SolverKind.AVM)) {
-				Config.nIterationsAVM = iterations;
-			} 
-		}
-		
-		coralSolver = solver.get();
+		};
+		//the last configuration check, before any thread is started
+		this.intervalWorkers = createWorkerPool(builder.intervalSolver);
+		this.portfolio = builder.portfolio.isEmpty() ? null : 
+		    new Portfolio(this.settings, builder.portfolio, builder.portfolioThreads);
+		this.componentPool = (builder.slicingParallelism > 1) ? new ForkJoinPool(builder.slicingParallelism) : null;
+		this.ownsAsyncExecutor = (builder.asyncExecutor == null);
+		this.asyncExecutor = !this.ownsAsyncExecutor ? builder.asyncExecutor : 
+		    Executors.newFixedThreadPool(builder.asyncThreads, new DaemonThreadFactory("coral-async"));
+	}
+	
+	private IntervalWorkerPool createWorkerPool(final IntervalSolver intervalSolver) {
+		if(intervalSolver.getWorkers() < 0)
+			throw new CoralConfigurationException("Number of interval solver workers must not be negative");
+		if(!intervalSolver.usesWorkers())
+			return null;
+		final long timeout = (this.settings.getTimeoutMillis() > 0) ? 
+		    this.settings.getTimeoutMillis() : IntervalWorkerPool.DEFAULT_TIMEOUT_MILLIS;
+		final IntervalWorkerPool pool = new IntervalWorkerPool(new IntervalWorkerPool.Factory() {
+			@Override
+			public IntervalWorker create() throws IOException {
+				return new IntervalSolverProcess(intervalSolver.getPath(), timeout);
+			}
+		}, intervalSolver.getWorkers(), timeout);
+		pool.validate();
+		return pool;
+	}
+	
+	/*
+	 * Stops the threads and interval solver processes owned by this solver. An
+	 * executor passed to CoralSolverBuilder.asyncExecutor is left alone. The
+	 * solver must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		if(this.ownsAsyncExecutor)
+			this.asyncExecutor.shutdownNow();
+		if(this.portfolio != null)
+			this.portfolio.close();
+		if(this.componentPool != null)
+			this.componentPool.shutdownNow();
+		if(this.intervalWorkers != null)
+			this.intervalWorkers.close();
+	}
+	
+	/*
+	 * The pool of interval solver processes, or null if Coral launches the
+	 * interval solver itself
+	 */
+	IntervalWorkerPool getIntervalWorkers() {
+		return this.intervalWorkers;
+	}
+	
+	CoralSettings getSettings() {
+		return this.settings;
 	}
 	
+	/*
+	 * The result cache, or null if caching is disabled
+	 */
+	public SolveCache getCache() {
+		return this.cache;
+	}
+	
+	/*
+	 * The pool of reusable models, or null if model reuse is disabled
+	 */
+	public ModelPool getModelPool() {
+		return this.modelPool;
+	}
+	
+	public SolverMetrics getMetrics() {
+		return this.metrics;
+	}
+	
+	@Deprecated
 	public void resetVarCounter() {
-		Util.resetID(); //resets var counter
+		//Every solve starts with its own symbol id space, see CoralRuntime
 	}
 	
 	@Override
@@ -143,48 +412,574 @@ public class CoralSolver extends ConstraintSolver {
 	
 	@Override
 	public Result solve(Expression<Boolean> f, Valuation result) {
-		CoralExpressionGenerator root = new CoralExpressionGenerator();
+		return solveDetailed(f, result).getResult();
+	}
+	
+	/*
+	 * Same as solve(f, result), but also tells why a DONT_KNOW was returned.
+	 */
+	public SolveResult solveDetailed(Expression<Boolean> f, Valuation result) {
+		long start = System.nanoTime();
+		SolveResult res = null;
+		try {
+			List<Expression<Boolean>> components = this.slicing ? ConstraintSlicer.slice(f) : null;
+			if(components != null && components.size() > 1)
+				res = solveComponents(components, result);
+			else
+				res = solveDetailed(Translation.of(f), result);
+			return res;
+		} finally {
+			record(start, res);
+		}
+	}
+	
+	/*
+	 * Solves f on the asynchronous executor. Cancelling the future interrupts
+	 * the solving thread: queries that wait for their turn give up right
+	 * away, and a search with a timeout stops after its current short search.
+	 * Coral itself does not check for interrupts, so a search without a
+	 * timeout that is already running still runs to its end.
+	 */
+	public CompletableFuture<SolveResult> solveAsync(final Expression<Boolean> f) {
+		final SolveFuture future = new SolveFuture();
+		try {
+			future.task = this.asyncExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					if(future.isDone())
+						return;
+					try {
+						future.complete(solveDetailed(f, new Valuation()));
+					} catch(Throwable e) {
+						future.completeExceptionally(e);
+					}
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+	
+	private static final class SolveFuture extends CompletableFuture<SolveResult> {
+		volatile Future<?> task = null;
+		
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			Future<?> t = this.task;
+			if(cancelled && t != null)
+				t.cancel(true);
+			return cancelled;
+		}
+	}
+	
+	/*
+	 * Solves independent formulas and returns their results in the same order.
+	 * Formulas that only differ in the names of their variables and the order
+	 * of their conjuncts are solved once. The others are solved concurrently on
+	 * the asynchronous executor, sharing the cache and the model pool. Unlike
+	 * solve, a formula that cannot be translated does not fail the batch but
+	 * gets DONT_KNOW with reason ERROR. Must not be called from a thread of the
+	 * asynchronous executor.
+	 */
+	public List<SolveResult> solveAll(List<Expression<Boolean>> formulas) {
+		int n = formulas.size();
+		ExpressionKey[] keys = new ExpressionKey[n];
+		//index of the formula each formula takes its result from
+		int[] solvedBy = new int[n];
+		Map<ExpressionKey, Integer> firsts = new HashMap<>();
+		List<Future<SolveResult>> futures = new ArrayList<>(n);
+		for(int i = 0; i < n; i++) {
+			final Expression<Boolean> f = formulas.get(i);
+			keys[i] = ExpressionKey.of(f);
+			Integer first = (keys[i] != null) ? firsts.get(keys[i]) : null;
+			if(first != null) {
+				solvedBy[i] = first;
+				futures.add(null);
+				continue;
+			}
+			if(keys[i] != null)
+				firsts.put(keys[i], i);
+			solvedBy[i] = i;
+			futures.add(this.asyncExecutor.submit(new Callable<SolveResult>() {
+				@Override
+				public SolveResult call() {
+					return solveDetailed(f, new Valuation());
+				}
+			}));
+		}
+		logger.fine("Solving " + firsts.size() + " distinct of " + n + " formulas");
+		
+		List<SolveResult> results = new ArrayList<>(n);
+		boolean interrupted = false;
+		for(int i = 0; i < n; i++) {
+			if(solvedBy[i] != i) {
+				results.add(rename(results.get(solvedBy[i]), keys[solvedBy[i]], keys[i]));
+				continue;
+			}
+			SolveResult res;
+			try {
+				res = interrupted ? null : futures.get(i).get();
+			} catch(InterruptedException e) {
+				interrupted = true;
+				res = null;
+			} catch(ExecutionException e) {
+				logger.log(Level.WARNING, "Solving formula " + i + " of the batch failed", e.getCause());
+				res = new SolveResult(Result.DONT_KNOW, null, Reason.ERROR);
+			}
+			if(res == null) {
+				futures.get(i).cancel(true);
+				res = new SolveResult(Result.DONT_KNOW, null, Reason.CANCELLED);
+			}
+			results.add(res);
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+		return results;
+	}
+	
+	/*
+	 * The result of the formula with key from for the formula with the same
+	 * key to
+	 */
+	private static SolveResult rename(SolveResult res, ExpressionKey from, ExpressionKey to) {
+		if(res.getResult() != Result.SAT)
+			return res;
+		Valuation model = new Valuation();
+		List<Variable<?>> fromVars = from.getVariables();
+		List<Variable<?>> toVars = to.getVariables();
+		for(int i = 0; i < fromVars.size(); i++) {
+			Variable<?> v = fromVars.get(i);
+			if(res.getValuation().containsValueFor(v))
+				ValuationUtil.setValue(model, toVars.get(i), res.getValuation().getValue(v));
+		}
+		return new SolveResult(Result.SAT, model, res.getReason());
+	}
+	
+	/*
+	 * Records a finished query that started at start (System.nanoTime()). res
+	 * is null if the query ended with an exception.
+	 */
+	void record(long start, SolveResult res) {
+		this.metrics.recordLatency(Phase.TOTAL, System.nanoTime() - start);
+		if(res != null)
+			this.metrics.recordResult(res);
+		else
+			this.metrics.recordFailure();
+	}
+	
+	/*
+	 * Solves variable-disjoint components and merges their models. Every
+	 * component goes through the cache and the model pool on its own. One
+	 * UNSAT component makes the conjunction UNSAT, so a DONT_KNOW only decides
+	 * once all components are solved.
+	 */
+	private SolveResult solveComponents(List<Expression<Boolean>> components, Valuation result) {
+		logger.finer("Solving " + components.size() + " independent components");
+		if(this.componentPool != null)
+			return solveComponentsParallel(components, result);
+		Valuation model = new Valuation();
+		SolveResult unknown = null;
+		for(Expression<Boolean> c : components) {
+			SolveResult res = solveComponent(c, model);
+			if(res.getResult() == Result.UNSAT)
+				return new SolveResult(Result.UNSAT, null, res.getReason());
+			if(res.getResult() == Result.DONT_KNOW && unknown == null)
+				unknown = res;
+		}
+		if(unknown != null)
+			return new SolveResult(Result.DONT_KNOW, null, unknown.getReason());
+		if(result != null)
+			ValuationUtil.copy(model, result);
+		return new SolveResult(Result.SAT, result);
+	}
+	
+	/*
+	 * Solves the components on the component pool. As soon as one component
+	 * is UNSAT, the others are cancelled. Otherwise the result is the same as
+	 * solving them one after the other, whatever order they finish in.
+	 */
+	private SolveResult solveComponentsParallel(List<Expression<Boolean>> components, Valuation result) {
+		CompletionService<SolveResult> ecs = new ExecutorCompletionService<>(this.componentPool);
+		List<Future<SolveResult>> futures = new ArrayList<>(components.size());
+		for(final Expression<Boolean> c : components) {
+			futures.add(ecs.submit(new Callable<SolveResult>() {
+				@Override
+				public SolveResult call() {
+					return solveComponent(c, new Valuation());
+				}
+			}));
+		}
+		Valuation model = new Valuation();
+		SolveResult unknown = null;
+		try {
+			for(int i = 0; i < futures.size(); i++) {
+				SolveResult res = ecs.take().get();
+				if(res.getResult() == Result.UNSAT)
+					return new SolveResult(Result.UNSAT, null, res.getReason());
+				if(res.getResult() == Result.DONT_KNOW) {
+					if(unknown == null)
+						unknown = res;
+					continue;
+				}
+				ValuationUtil.copy(res.getValuation(), model);
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new SolveResult(Result.DONT_KNOW, null, Reason.CANCELLED);
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof CoralSolverException)
+				throw (CoralSolverException)e.getCause();
+			logger.log(Level.SEVERE, "Solving a component failed", e.getCause());
+			return new SolveResult(Result.DONT_KNOW, null, Reason.ERROR);
+		} finally {
+			for(Future<SolveResult> fut : futures)
+				fut.cancel(true);
+		}
+		if(unknown != null)
+			return new SolveResult(Result.DONT_KNOW, null, unknown.getReason());
+		if(result != null)
+			ValuationUtil.copy(model, result);
+		return new SolveResult(Result.SAT, result);
+	}
+	
+	private SolveResult solveComponent(Expression<Boolean> c, Valuation model) {
+		if(ExpressionUtil.freeVariables(c).isEmpty())
+			return new SolveResult(c.evaluate(model) ? Result.SAT : Result.UNSAT, model);
+		return solveDetailed(Translation.of(c), model);
+	}
+	
+	SolveResult solveDetailed(Translation t, Valuation result) {
+		ExpressionKey key = (this.cache != null) ? ExpressionKey.of(t.getFormula()) : null;
+		if(key != null) {
+			SolveResult cached = this.cache.lookup(key, result);
+			if(cached != null)
+				return cached;
+		}
+		Valuation hint = t.getHint();
+		//the cache, the pool and the context need the model even if the caller does not
+		if(result == null && (key != null || this.modelPool != null || hint != null))
+			result = new Valuation();
+		
+		SolveResult res;
+		Set<Variable<?>> freeVars = (hint != null || this.modelPool != null) ? 
+		    ExpressionUtil.freeVariables(t.getFormula()) : null;
+		if(hint != null && ValuationUtil.isModel(t.getFormula(), freeVars, hint)) {
+			logger.finer("Hint is a model");
+			ValuationUtil.copy(hint, freeVars, result);
+			res = new SolveResult(Result.SAT, result);
+		} else if(this.modelPool != null && this.modelPool.reuse(t.getFormula(), freeVars, result)) {
+			logger.finer("Reused model " + result);
+			res = new SolveResult(Result.SAT, result);
+		} else {
+			res = ExpressionSimplifier.decide(t.getFormula(), result);
+			if(res == null && this.linearPresolve)
+				res = LinearSolver.solve(t.getFormula(), result);
+			if(res == null && (this.intervalPresolve || this.intervalWorkers != null))
+				res = narrowDomains(t);
+			if(res != null) {
+				logger.finer("Presolver: " + res);
+			} else if(this.portfolio != null) {
+				//portfolio members run concurrently, so each of them translates on its own
+				res = this.portfolio.solve(this, t.getConstrainedFormula(), result);
+			} else {
+				res = solveEscalating(t, result);
+			}
+			if(this.modelPool != null && res.getResult() == Result.SAT)
+				this.modelPool.add(res.getValuation());
+		}
+		if(key != null)
+			this.cache.store(key, res);
+		return res;
+	}
+	
+	/*
+	 * Propagates the bounds of the formula and asks the interval solver
+	 * workers, returning UNSAT if a variable is left without values and
+	 * otherwise handing the narrowed boxes to the search as additional
+	 * constraints.
+	 */
+	private SolveResult narrowDomains(Translation t) {
+		Map<Variable<?>, Interval> box = this.intervalPresolve ? 
+		    IntervalPropagator.propagate(t.getFormula()) : new HashMap<Variable<?>, Interval>();
+		if(box != null && this.intervalWorkers != null)
+			box = this.intervalWorkers.narrow(t.getFormula(), box);
+		if(box == null)
+			return new SolveResult(Result.UNSAT, null);
+		List<Expression<Boolean>> domains = IntervalPropagator.toConstraints(box);
+		t.setDomains(domains);
+		if(!domains.isEmpty())
+			logger.finer("Narrowed domains " + box);
+		return null;
+	}
+	
+	/*
+	 * Searches with the configured (or adaptively chosen) iteration budget and,
+	 * as long as the escalation policy allows, retries searches that ended with
+	 * DONT_KNOW.
+	 */
+	private SolveResult solveEscalating(Translation t, Valuation result) {
+		CoralSettings base = this.settings;
+		FormulaFeatures features = null;
+		if(this.budget != null) {
+			features = FormulaFeatures.of(t.getFormula());
+			base = base.withIterations(this.budget.iterationsFor(features));
+			logger.finer("Adaptive iterations " + base.getIterations() + " for " + features);
+		}
+		long start = System.currentTimeMillis();
+		long budgetMillis = this.escalation.getBudgetMillis();
+		SolveResult res = null;
+		for(int attempt = 0; attempt <= this.escalation.getRetries(); attempt++) {
+			CoralSettings s = this.escalation.settingsFor(base, attempt);
+			if(budgetMillis > 0) {
+				long remaining = budgetMillis - (System.currentTimeMillis() - start);
+				if(remaining <= 0 && attempt > 0)
+					break;
+				remaining = Math.max(1, remaining);
+				s = s.withTimeoutMillis((s.getTimeoutMillis() > 0) ? Math.min(s.getTimeoutMillis(), remaining) : remaining);
+			}
+			if(attempt > 0)
+				logger.fine("Retry " + attempt + " with " + s);
+			res = solve(t, result, s);
+			//only the first attempt tells how well the adaptive budget fits
+			if(attempt == 0 && features != null)
+				this.budget.record(features, res);
+			if(!this.escalation.shouldRetry(res))
+				break;
+		}
+		return res;
+	}
+	
+	SolveResult solve(Expression<Boolean> f, Valuation result, CoralSettings settings) {
+		return solve(Translation.of(f), result, settings);
+	}
+	
+	SolveResult solve(final Translation t, Valuation result, final CoralSettings settings) {
+		if(this.swarms != null && settings.getSolverKind() == SolverKind.PSO_OPT4J) {
+			SolveResult res = solveNative(t, result, settings);
+			if(res != null)
+				return res;
+		}
+		final coral.solvers.Solver solver = (settings.getSolverKind() == this.settings.getSolverKind()) ? 
+		    this.coralSolver : settings.getSolverKind().get();
 		final Env[] sol = new Env[1];
+		//start of translation, start of search, end of search
+		final long[] times = new long[3];
+		final boolean bounded = settings.getTimeoutMillis() > 0;
+		final long deadline = System.nanoTime() + settings.getTimeoutMillis() * 1000000L;
+		Callable<Env> search = new Callable<Env>() {
+			@Override
+			public Env call() throws Exception {
+				times[0] = System.nanoTime();
+				final PC pc;
+				try {
+					pc = t.translate();
+				} catch(RuntimeException e) {
+					//unsupported constructs will not go away by searching again
+					throw new CoralSolverException("Cannot translate formula to Coral: " + e.getMessage(), e);
+				}
+				times[1] = System.nanoTime();
+				logger.fine("Coral solving...");
+				Env env = bounded ? searchUntil(solver, pc, settings, deadline) : solver.getCallable(pc).call();
+				times[2] = System.nanoTime();
+				return env;
+			}
+		};
     try {
-  		final PC pc = root.generateAssertion(f);
-  		logger.fine("Coral solving...");
-			sol[0] = coralSolver.getCallable(pc).call();
+      sol[0] = bounded ? CoralRuntime.exclusive(settings, t.getSymbolSpace(), search, deadline) :
+          CoralRuntime.exclusive(settings, t.getSymbolSpace(), search);
+		} catch (TimeoutException e) {
+		  logger.fine("Coral did not finish within " + settings.getTimeoutMillis() + "ms. Returning DONT_KNOW");
+		  return new SolveResult(Result.DONT_KNOW, null, Reason.TIMEOUT);
+		} catch (InterruptedException e) {
+		  Thread.currentThread().interrupt();
+		  return new SolveResult(Result.DONT_KNOW, null, Reason.CANCELLED);
+		} catch (CoralSolverException e) {
+		  throw e;
 		} catch (Exception e) {
-		  logger.severe("Coral threw exception. Returning DONT_KNOW");
-			return Result.DONT_KNOW;
+		  logger.log(Level.SEVERE, "Coral threw exception. Returning DONT_KNOW", e);
+		  return new SolveResult(Result.DONT_KNOW, null, Reason.ERROR);
+		}
+		if(this.metrics != SolverMetrics.NONE) {
+			this.metrics.recordLatency(Phase.TRANSLATION, times[1] - times[0]);
+			this.metrics.recordLatency(Phase.SEARCH, times[2] - times[1]);
+			this.metrics.recordFormula(FormulaFeatures.of(t.getFormula()).getNodes(), t.getVariables().size());
+			this.metrics.recordIterations(settings.getEffectiveIterations());
 		}
 		//TODO: not sure why the solution is found as the first element in the Env[]...
 		Env coralSol = sol[0];		
 		Result coralRes = convertCoralRes(coralSol.getResult());
+		long extractionStart = System.nanoTime();
 		
-		if(result != null && coralRes == Result.SAT) { //result is requested besides satisfiability check
-			HashMap<Variable<?>, SymLiteral> varMap = root.getVariables();
-			for(Variable<?> v : varMap.keySet()) {
-				SymNumber value = coralSol.getValue(varMap.get(v));
-				
-				//These checks make my eyes bleed
-				if((v.getType() instanceof FloatType) && 
-				    !(value instanceof SymFloat)) { //TODO: ensure this is sound. It seems like a patch
-				  Float floatVal = value.evalNumber().floatValue();
-				  result.setParsedValue(v, floatVal.toString());
-				} else if((v.getType() instanceof DoubleType) && 
-            !(value instanceof SymDouble)) {
-          Double dVal = value.evalNumber().doubleValue();
-          result.setParsedValue(v, dVal.toString());
-				} else if((v.getType() instanceof SInt32Type) && 
-	           !(value instanceof SymInt)) {
-          Integer iVal = value.evalNumber().intValue();
-          result.setParsedValue(v, iVal.toString());
-	      } else if((v.getType() instanceof SInt64Type) && 
-            !(value instanceof SymLong)) {
-         Long lVal = value.evalNumber().longValue();
-         result.setParsedValue(v, lVal.toString());
-       } else //This is the default case which should be the most frequent one
-	        result.setParsedValue(v, value.toString());
+		if(coralRes == Result.SAT) {
+			Valuation model = new Valuation();
+			Map<Variable<?>, SymLiteral> varMap = t.getVariables();
+			for(Map.Entry<Variable<?>, SymLiteral> e : varMap.entrySet()) {
+				Variable<?> v = e.getKey();
+				ValueConverter.set(model, v, coralSol.getValue(e.getValue()));
+			}
+			//variables the simplifier removed from the formula
+			Set<Variable<?>> vars = ExpressionUtil.freeVariables(t.getFormula());
+			for(Variable<?> v : vars) {
+				if(!varMap.containsKey(v))
+					ValuationUtil.setDefault(model, v);
 			}
-			logger.finer("Satisfiable, valuation " + result);
+			//Coral's arithmetic is not Java's, and a wrong model must never be reported
+			if(!ValuationUtil.isModel(t.getFormula(), vars, model)) {
+				logger.fine("Coral's model " + model + " does not satisfy the formula. Returning DONT_KNOW");
+				return new SolveResult(Result.DONT_KNOW, null);
+			}
+			if(result != null)
+				ValuationUtil.copy(model, result);
+			logger.finer("Satisfiable, valuation " + model);
+			this.metrics.recordLatency(Phase.EXTRACTION, System.nanoTime() - extractionStart);
+		}
+		return new SolveResult(coralRes, (coralRes == Result.SAT) ? result : null);
+	}
+	
+	/*
+	 * Coral's searches do not react to interrupts, so with a timeout the
+	 * iteration budget is spent in bounded searches with different seeds, and
+	 * the deadline is checked in between. Each search is sized to take at most
+	 * a quarter of the remaining time, estimated from the previous ones.
+	 * Solver kinds without an iteration budget cannot be split and search
+	 * once. Must only be called while holding the Coral lock.
+	 */
+	private static Env searchUntil(coral.solvers.Solver solver, PC pc, CoralSettings settings, long deadline) 
+	    throws Exception {
+		int budget = settings.getEffectiveIterations();
+		if(budget <= 0) {
+			if(deadline - System.nanoTime() <= 0)
+				throw new TimeoutException("Coral did not finish in time");
+			Env env = solver.getCallable(pc).call();
+			if(env.getResult() == coral.solvers.Result.UNK && deadline - System.nanoTime() <= 0)
+				throw new TimeoutException("Coral did not finish in time");
+			return env;
+		}
+		int done = 0;
+		long spent = 0;
+		Env env = null;
+		for(int chunk = 0; done < budget; chunk++) {
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0)
+				throw new TimeoutException("Coral did not finish in time");
+			if(Thread.interrupted())
+				throw new InterruptedException();
+			int n = CHUNK_ITERATIONS;
+			if(done > 0) {
+				long perIteration = Math.max(1, spent / done);
+				n = (int)Math.max(CHUNK_ITERATIONS, Math.min(Integer.MAX_VALUE, remaining / 4 / perIteration));
+			}
+			n = Math.min(n, budget - done);
+			settings.withIterations(n).withSeed(settings.getSeed() + chunk).install();
+			long start = System.nanoTime();
+			env = solver.getCallable(pc).call();
+			spent += System.nanoTime() - start;
+			done += n;
+			if(env.getResult() != coral.solvers.Result.UNK)
+				return env;
+		}
+		return env;
+	}
+	
+	/*
+	 * Searches with the built-in particle swarm. It does not touch Coral's
+	 * state, so it runs without the Coral lock. Returns null if the formula
+	 * cannot be compiled.
+	 */
+	private SolveResult solveNative(Translation t, Valuation result, CoralSettings settings) {
+		CompiledFitness fitness;
+		try {
+			fitness = this.fitnessCache.get(ExpressionSimplifier.simplify(t.getConstrainedFormula()));
+		} catch(UnsupportedOperationException e) {
+			logger.finer("Cannot compile fitness, searching with Coral: " + e.getMessage());
+			return null;
+		}
+		int dim = fitness.getDimension();
+		double[] lo = new double[dim], hi = new double[dim];
+		bounds(fitness, t.getDomains(), lo, hi);
+		double[] start = null;
+		Valuation hint = t.getHint();
+		if(hint != null) {
+			start = new double[dim];
+			for(int i = 0; i < dim; i++) {
+				Variable<?> var = fitness.getVariables().get(i);
+				Object v = hint.containsValueFor(var) ? hint.getValue(var) : null;
+				if(v instanceof Number)
+					start[i] = ((Number)v).doubleValue();
+				else if(v instanceof Boolean)
+					start[i] = ((Boolean)v) ? 1 : 0;
+				else
+					start[i] = (lo[i] + hi[i]) / 2;
+			}
+		}
+		
+		long searchStart = System.nanoTime();
+		long deadline = (settings.getTimeoutMillis() > 0) ? 
+		    searchStart + settings.getTimeoutMillis() * 1000000L : searchStart + Long.MAX_VALUE;
+		int iterations = settings.getEffectiveIterations();
+		ParticleSwarm swarm = this.swarms.get();
+		boolean found;
+		try {
+			found = swarm.search(fitness, lo, hi, start, settings.getSeed(), iterations, deadline);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new SolveResult(Result.DONT_KNOW, null, Reason.CANCELLED);
+		}
+		if(this.metrics != SolverMetrics.NONE) {
+			this.metrics.recordLatency(Phase.SEARCH, System.nanoTime() - searchStart);
+			this.metrics.recordFormula(FormulaFeatures.of(t.getFormula()).getNodes(), dim);
+			this.metrics.recordIterations(iterations);
+		}
+		if(!found) {
+			boolean expired = System.nanoTime() - deadline > 0;
+			return new SolveResult(Result.DONT_KNOW, null, expired ? Reason.TIMEOUT : Reason.INCOMPLETE);
+		}
+		
+		//the fitness ignores overflows and float rounding, the formula does not
+		Valuation model = new Valuation();
+		fitness.toValuation(swarm.getBest(), model);
+		Set<Variable<?>> vars = ExpressionUtil.freeVariables(t.getFormula());
+		for(Variable<?> v : vars) {
+			if(!model.containsValueFor(v))
+				ValuationUtil.setDefault(model, v);
+		}
+		if(!ValuationUtil.isModel(t.getFormula(), vars, model))
+			return new SolveResult(Result.DONT_KNOW, null);
+		if(result != null)
+			ValuationUtil.copy(model, result);
+		logger.finer("Satisfiable, valuation " + model);
+		return new SolveResult(Result.SAT, result);
+	}
+	
+	/*
+	 * The initial ranges of the dimensions of the swarm: the bounds the
+	 * interval presolver found, or RANGE around 0
+	 */
+	private static void bounds(CompiledFitness fitness, List<Expression<Boolean>> domains, double[] lo, double[] hi) {
+		double[] dlo = new double[lo.length], dhi = new double[hi.length];
+		Arrays.fill(dlo, Double.NEGATIVE_INFINITY);
+		Arrays.fill(dhi, Double.POSITIVE_INFINITY);
+		List<Variable<?>> vars = fitness.getVariables();
+		for(Expression<Boolean> d : domains) {
+			if(!(d instanceof NumericBooleanExpression))
+				continue;
+			NumericBooleanExpression nbe = (NumericBooleanExpression)d;
+			int i = vars.indexOf(nbe.getLeft());
+			if(i < 0 || !(nbe.getRight() instanceof Constant))
+				continue;
+			double v = ((Number)((Constant<?>)nbe.getRight()).getValue()).doubleValue();
+			if(nbe.getComparator() == NumericComparator.GE)
+				dlo[i] = v;
+			else if(nbe.getComparator() == NumericComparator.LE)
+				dhi[i] = v;
+		}
+		for(int i = 0; i < lo.length; i++) {
+			boolean hasLo = !Double.isInfinite(dlo[i]), hasHi = !Double.isInfinite(dhi[i]);
+			lo[i] = hasLo ? dlo[i] : (hasHi ? dhi[i] - 2 * ParticleSwarm.RANGE : -ParticleSwarm.RANGE);
+			hi[i] = hasHi ? dhi[i] : lo[i] + 2 * ParticleSwarm.RANGE;
 		}
-		return coralRes;
 	}
 	
 	private Result convertCoralRes(coral.solvers.Result coralRes) {
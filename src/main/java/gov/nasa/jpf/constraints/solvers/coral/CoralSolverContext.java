@@ -21,38 +21,61 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+import symlib.SymBool;
+import symlib.SymLiteral;
+import symlib.Util;
+import coral.PC;
 import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
 import gov.nasa.jpf.constraints.api.Expression;
 import gov.nasa.jpf.constraints.api.SolverContext;
 import gov.nasa.jpf.constraints.api.Valuation;
-import gov.nasa.jpf.constraints.expressions.LogicalOperator;
-import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.solvers.coral.CoralRuntime.SymbolSpace;
 import gov.nasa.jpf.constraints.util.ExpressionUtil;
 
 public class CoralSolverContext extends SolverContext {
 
+  /*
+   * Expressions of a stack frame together with their Coral translation. Only
+   * expressions[0, translated.size()) have been translated so far.
+   */
+  private static class Frame {
+    final List<Expression<Boolean>> expressions = new ArrayList<>();
+    final List<SymBool> translated = new ArrayList<>();
+    //variables whose literal was created while translating this frame
+    final List<Variable<?>> introduced = new ArrayList<>();
+    //whether domains were translated while this was the top frame
+    boolean domains = false;
+    //last model found while this was the top frame
+    Valuation model = null;
+  }
+
   private final CoralSolver coral;
-  private Deque<List<Expression<Boolean>>> exprStack = new ArrayDeque<List<Expression<Boolean>>>();
+  private Deque<Frame> exprStack = new ArrayDeque<Frame>();
+  private final IncrementalTranslation translation = new IncrementalTranslation();
 
   public CoralSolverContext(CoralSolver solver) {
     this.coral = solver;
 
     //Push initial context
-    exprStack.push(new LinkedList<Expression<Boolean>>());
+    exprStack.push(new Frame());
   }
 
   @Override
   public void push() {
     depth++;
-    exprStack.push(new LinkedList<Expression<Boolean>>());
+    exprStack.push(new Frame());
   }
   int depth = 0;
   @Override
   public void pop(int n) {
     depth -= n;
-    for(int i = 0; i < n; i++)
-      exprStack.pop();
+    for(int i = 0; i < n; i++) {
+      Frame f = exprStack.pop();
+      translation.drop(f);
+    }
   }
 
   @Override
@@ -61,26 +84,125 @@ public class CoralSolverContext extends SolverContext {
       return Result.UNSAT;
       //throw new IllegalStateException("No expression to solve!");
     }
-    Expression<Boolean> expr = combineDeque(this.exprStack);
-    //Expression<Boolean> expr = getExpr(this.exprStack);
-    return this.coral.solve(expr, val);
+    long start = System.nanoTime();
+    Frame top = exprStack.peek();
+    SolveResult res = null;
+    try {
+      res = this.coral.solveDetailed(this.translation, (val != null) ? val : new Valuation());
+    } finally {
+      this.coral.record(start, res);
+    }
+    if(res.getResult() == Result.SAT) {
+      top.model = new Valuation();
+      ValuationUtil.copy(res.getValuation(), top.model);
+    }
+    return res.getResult();
   }
 
-  private Expression<Boolean> combineDeque(Deque<List<Expression<Boolean>>> deq) {
+  private Expression<Boolean> combineDeque(Deque<Frame> deq) {
     List<Expression<Boolean>> cList = new ArrayList<>();
-    for(List<Expression<Boolean>> l : deq) {
-      cList.add(ExpressionUtil.and(l));
-    }
+    Iterator<Frame> it = deq.descendingIterator();
+    while(it.hasNext())
+      cList.addAll(it.next().expressions);
     return ExpressionUtil.and(cList);
   }
 
   @Override
   public void add(List<Expression<Boolean>> expressions) {
-    exprStack.peek().addAll(expressions);
+    exprStack.peek().expressions.addAll(expressions);
   }
 
   @Override
   public void dispose() {
 
   }
+
+  /*
+   * Keeps the translated constraints of all frames and only translates
+   * expressions added since the last solve. If another solve used Coral in
+   * between, the literals are stale and everything is translated again.
+   */
+  private class IncrementalTranslation extends Translation {
+    private final SymbolSpace space = new SymbolSpace();
+    private int resets = space.getResets();
+    private CoralExpressionGenerator gen = new CoralExpressionGenerator();
+
+    @Override
+    Expression<Boolean> getFormula() {
+      return combineDeque(exprStack);
+    }
+
+    @Override
+    SymbolSpace getSymbolSpace() {
+      return this.space;
+    }
+
+    /*
+     * The model of the innermost frame that has one. Extending a satisfiable
+     * prefix often keeps it a model, and otherwise it is a good starting point.
+     */
+    @Override
+    Valuation getHint() {
+      for(Frame f : exprStack) {
+        if(f.model != null)
+          return f.model;
+      }
+      return null;
+    }
+
+    @Override
+    PC translate() {
+      if(this.resets != this.space.getResets()) {
+        this.resets = this.space.getResets();
+        this.gen = new CoralExpressionGenerator();
+        for(Frame f : exprStack) {
+          f.translated.clear();
+          f.introduced.clear();
+        }
+      }
+
+      List<SymBool> constraints = new LinkedList<>();
+      Iterator<Frame> it = exprStack.descendingIterator();
+      while(it.hasNext()) {
+        Frame f = it.next();
+        for(int i = f.translated.size(); i < f.expressions.size(); i++)
+          f.translated.add(translate(f, f.expressions.get(i)));
+        constraints.addAll(f.translated);
+      }
+      //domains are narrowed for the whole stack, so the top frame owns their literals
+      Frame top = exprStack.peek();
+      for(Expression<Boolean> d : getDomains()) {
+        constraints.add(translate(top, d));
+        top.domains = true;
+      }
+      if(constraints.isEmpty())
+        constraints.add((SymBool)Util.createConstant(true));
+      return new PC(constraints);
+    }
+
+    /*
+     * Translates expr and records the variables it introduces in f, so they
+     * are forgotten when f is popped.
+     */
+    private SymBool translate(Frame f, Expression<Boolean> expr) {
+      expr = ExpressionSimplifier.simplify(expr);
+      for(Variable<?> v : ExpressionUtil.freeVariables(expr)) {
+        if(!this.gen.getVariables().containsKey(v))
+          f.introduced.add(v);
+      }
+      return this.gen.translate(expr);
+    }
+
+    @Override
+    Map<Variable<?>, SymLiteral> getVariables() {
+      return this.gen.getVariables();
+    }
+
+    void drop(Frame f) {
+      this.gen.forget(f.introduced);
+      //every solve narrows new domain expressions, which stay in the shared translations
+      if(f.domains)
+        this.gen.forgetShared();
+    }
+  }
 }
@@ -15,6 +15,8 @@
  */
 package gov.nasa.jpf.constraints.solvers.coral;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import coral.solvers.SolverKind;
@@ -40,6 +42,15 @@ public class CoralSolverProvider implements ConstraintSolverProvider {
 			if(props.containsKey(CoralConfig.ITERATIONS.getPropStr()))
 				solverBuilder.iterations(Integer.parseInt(props.getProperty(CoralConfig.ITERATIONS.getPropStr())));
 			
+			if(props.containsKey(CoralConfig.ADAPTIVE_ITERATIONS.getPropStr()))
+				solverBuilder.adaptiveIterations(Boolean.parseBoolean(props.getProperty(CoralConfig.ADAPTIVE_ITERATIONS.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.MIN_ITERATIONS.getPropStr()))
+				solverBuilder.minIterations(Integer.parseInt(props.getProperty(CoralConfig.MIN_ITERATIONS.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.MAX_ITERATIONS.getPropStr()))
+				solverBuilder.maxIterations(Integer.parseInt(props.getProperty(CoralConfig.MAX_ITERATIONS.getPropStr())));
+			
 			if(props.containsKey(CoralConfig.SOLVER_KIND.getPropStr()))
 				solverBuilder.solverKind(SolverKind.valueOf(props.getProperty(CoralConfig.SOLVER_KIND.getPropStr()).toUpperCase()));
 			
@@ -53,15 +64,83 @@ public class CoralSolverProvider implements ConstraintSolverProvider {
 				boolean hasPath = props.containsKey(CoralConfig.INTERVAL_SOLVER_PATH.getPropStr());
 				if(s != IntervalSolver.Solver.NONE && !hasPath)
 					throw new CoralConfigurationException("Need to specify path when using the interval solver " + s);
+				int workers = props.containsKey(CoralConfig.INTERVAL_SOLVER_WORKERS.getPropStr()) ? 
+				    Integer.parseInt(props.getProperty(CoralConfig.INTERVAL_SOLVER_WORKERS.getPropStr())) : 0;
 				if(hasPath)
-					iSolver = new IntervalSolver(s, props.getProperty(CoralConfig.INTERVAL_SOLVER_PATH.getPropStr()));
+					iSolver = new IntervalSolver(s, props.getProperty(CoralConfig.INTERVAL_SOLVER_PATH.getPropStr()), workers);
 				else
 					iSolver = new IntervalSolver(s);
 				solverBuilder.intervalSolver(iSolver);
 			}
+			
+			if(props.containsKey(CoralConfig.PORTFOLIO.getPropStr()))
+				solverBuilder.portfolio(parseSolverKinds(props.getProperty(CoralConfig.PORTFOLIO.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.PORTFOLIO_THREADS.getPropStr()))
+				solverBuilder.portfolioThreads(Integer.parseInt(props.getProperty(CoralConfig.PORTFOLIO_THREADS.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.TIMEOUT.getPropStr()))
+				solverBuilder.timeout(Long.parseLong(props.getProperty(CoralConfig.TIMEOUT.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.CACHE_SIZE.getPropStr()))
+				solverBuilder.cacheSize(Integer.parseInt(props.getProperty(CoralConfig.CACHE_SIZE.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.MODEL_POOL_SIZE.getPropStr()))
+				solverBuilder.modelPoolSize(Integer.parseInt(props.getProperty(CoralConfig.MODEL_POOL_SIZE.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.SLICING.getPropStr()))
+				solverBuilder.slicing(Boolean.parseBoolean(props.getProperty(CoralConfig.SLICING.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.SLICING_PARALLELISM.getPropStr()))
+				solverBuilder.slicingParallelism(Integer.parseInt(props.getProperty(CoralConfig.SLICING_PARALLELISM.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.METRICS_JMX.getPropStr()))
+				solverBuilder.metrics(new JmxSolverMetrics().register(props.getProperty(CoralConfig.METRICS_JMX.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.RETRIES.getPropStr()))
+				solverBuilder.retries(Integer.parseInt(props.getProperty(CoralConfig.RETRIES.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.RETRY_ITERATION_FACTOR.getPropStr()))
+				solverBuilder.retryIterationFactor(Integer.parseInt(props.getProperty(CoralConfig.RETRY_ITERATION_FACTOR.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.RETRY_SOLVERS.getPropStr()))
+				solverBuilder.retrySolvers(parseSolverKinds(props.getProperty(CoralConfig.RETRY_SOLVERS.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.RETRY_BUDGET.getPropStr()))
+				solverBuilder.retryBudget(Long.parseLong(props.getProperty(CoralConfig.RETRY_BUDGET.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.LINEAR_PRESOLVE.getPropStr()))
+				solverBuilder.linearPresolve(Boolean.parseBoolean(props.getProperty(CoralConfig.LINEAR_PRESOLVE.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.INTERVAL_PRESOLVE.getPropStr()))
+				solverBuilder.intervalPresolve(Boolean.parseBoolean(props.getProperty(CoralConfig.INTERVAL_PRESOLVE.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.ASYNC_THREADS.getPropStr()))
+				solverBuilder.asyncThreads(Integer.parseInt(props.getProperty(CoralConfig.ASYNC_THREADS.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.NATIVE_PSO.getPropStr()))
+				solverBuilder.nativePso(Boolean.parseBoolean(props.getProperty(CoralConfig.NATIVE_PSO.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.SWARM_SIZE.getPropStr()))
+				solverBuilder.swarmSize(Integer.parseInt(props.getProperty(CoralConfig.SWARM_SIZE.getPropStr())));
+			
+			if(props.containsKey(CoralConfig.BATCHED_FITNESS.getPropStr()))
+				solverBuilder.batchedFitness(Boolean.parseBoolean(props.getProperty(CoralConfig.BATCHED_FITNESS.getPropStr())));
 		} catch(Exception e) {
 			throw new CoralConfigurationException("Invalid configuration of Coral.", e);
 		}
 		return solverBuilder.buildCoralSolver();
 	}
+	
+	/*
+	 * Comma-separated list of solver kinds
+	 */
+	private static List<SolverKind> parseSolverKinds(String kinds) {
+		List<SolverKind> res = new ArrayList<>();
+		for(String kind : kinds.split(",")) {
+			if(!kind.trim().isEmpty())
+				res.add(SolverKind.valueOf(kind.trim().toUpperCase()));
+		}
+		return res;
+	}
 }
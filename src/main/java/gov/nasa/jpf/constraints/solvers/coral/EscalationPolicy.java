@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import coral.solvers.SolverKind;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+
+/*
+ * What to do when a search ends with DONT_KNOW. Every retry uses a new seed and
+ * multiplies the iteration budget by iterationFactor. If solver kinds are
+ * given, the retries cycle through them. All attempts of a query together
+ * stay within budgetMillis, if it is positive.
+ */
+final class EscalationPolicy {
+
+	private final int retries;
+	private final int iterationFactor;
+	private final List<SolverKind> solverKinds;
+	private final long budgetMillis;
+
+	EscalationPolicy(int retries, int iterationFactor, List<SolverKind> solverKinds, long budgetMillis) {
+		if(retries < 0)
+			throw new CoralConfigurationException("Number of retries must not be negative");
+		if(iterationFactor < 1)
+			throw new CoralConfigurationException("Iteration factor of retries must be at least 1");
+		this.retries = retries;
+		this.iterationFactor = iterationFactor;
+		this.solverKinds = Collections.unmodifiableList(new ArrayList<>(solverKinds));
+		this.budgetMillis = budgetMillis;
+	}
+
+	int getRetries() {
+		return this.retries;
+	}
+
+	long getBudgetMillis() {
+		return this.budgetMillis;
+	}
+
+	/*
+	 * Only searches that gave up are retried; a cancelled query stays cancelled.
+	 */
+	boolean shouldRetry(SolveResult res) {
+		if(res.getResult() != Result.DONT_KNOW)
+			return false;
+		switch(res.getReason()) {
+		case INCOMPLETE:
+		case TIMEOUT:
+		case ERROR:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/*
+	 * The settings of attempt number attempt, 0 being the original search
+	 */
+	CoralSettings settingsFor(CoralSettings base, int attempt) {
+		if(attempt == 0)
+			return base;
+		CoralSettings s = base.withSeed(base.getSeed() + attempt);
+		if(!this.solverKinds.isEmpty())
+			s = s.withSolverKind(this.solverKinds.get((attempt - 1) % this.solverKinds.size()));
+		int iterations = s.getEffectiveIterations();
+		if(iterations > 0) {
+			long scaled = iterations;
+			for(int i = 0; i < attempt && scaled < Integer.MAX_VALUE; i++)
+				scaled *= this.iterationFactor;
+			s = s.withIterations((int)Math.min(scaled, Integer.MAX_VALUE));
+		}
+		return s;
+	}
+
+	@Override
+	public String toString() {
+		return "retries=" + this.retries +
+			   ", iteration_factor=" + this.iterationFactor +
+			   ", solvers=" + this.solverKinds +
+			   ", budget=" + this.budgetMillis + "ms";
+	}
+}
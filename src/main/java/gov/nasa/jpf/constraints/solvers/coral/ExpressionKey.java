@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.BitvectorExpression;
+import gov.nasa.jpf.constraints.expressions.CastExpression;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+
+/*
+ * Canonical form of a formula that is equal for formulas which only differ in
+ * the names of their variables and the order of their top-level conjuncts.
+ * Variables are numbered in the order they first occur in the canonical form;
+ * getVariables() maps these numbers back to the variables of the formula.
+ */
+final class ExpressionKey {
+
+	private final String key;
+	private final List<Variable<?>> variables;
+
+	private ExpressionKey(String key, List<Variable<?>> variables) {
+		this.key = key;
+		this.variables = variables;
+	}
+
+	/*
+	 * Returns null if the formula contains an expression that cannot be
+	 * represented canonically.
+	 */
+	static ExpressionKey of(Expression<Boolean> expr) {
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		flattenConjunction(expr, conjuncts);
+
+		//sort the conjuncts by their shape, i.e., the canonical form without variable identities
+		final Map<Expression<Boolean>, String> shapes = new HashMap<>();
+		for(Expression<Boolean> c : conjuncts) {
+			Printer shape = new Printer(true);
+			if(!shape.print(c))
+				return null;
+			shapes.put(c, shape.toString());
+		}
+		Collections.sort(conjuncts, new Comparator<Expression<Boolean>>() {
+			@Override
+			public int compare(Expression<Boolean> a, Expression<Boolean> b) {
+				return shapes.get(a).compareTo(shapes.get(b));
+			}
+		});
+
+		Printer printer = new Printer(false);
+		for(Expression<Boolean> c : conjuncts) {
+			printer.print(c);
+			printer.sb.append(';');
+		}
+		return new ExpressionKey(printer.toString(), Collections.unmodifiableList(printer.variables));
+	}
+
+	static void flattenConjunction(Expression<Boolean> expr, List<Expression<Boolean>> conjuncts) {
+		if(expr instanceof PropositionalCompound &&
+		    ((PropositionalCompound)expr).getOperator() == LogicalOperator.AND) {
+			PropositionalCompound pc = (PropositionalCompound)expr;
+			flattenConjunction(pc.getLeft(), conjuncts);
+			flattenConjunction(pc.getRight(), conjuncts);
+		} else
+			conjuncts.add(expr);
+	}
+
+	List<Variable<?>> getVariables() {
+		return this.variables;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.key.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+		if(!(obj instanceof ExpressionKey))
+			return false;
+		return this.key.equals(((ExpressionKey)obj).key);
+	}
+
+	@Override
+	public String toString() {
+		return this.key;
+	}
+
+	private static class Printer {
+		private final boolean shapeOnly;
+		private final StringBuilder sb = new StringBuilder();
+		private final Map<Variable<?>, Integer> ids = new HashMap<>();
+		private final List<Variable<?>> variables = new ArrayList<>();
+
+		Printer(boolean shapeOnly) {
+			this.shapeOnly = shapeOnly;
+		}
+
+		boolean print(Expression<?> e) {
+			if(e instanceof Variable) {
+				Variable<?> v = (Variable<?>)e;
+				sb.append('$').append(v.getType().getName());
+				if(!shapeOnly) {
+					Integer id = ids.get(v);
+					if(id == null) {
+						id = variables.size();
+						ids.put(v, id);
+						variables.add(v);
+					}
+					sb.append('_').append(id);
+				}
+				return true;
+			} else if(e instanceof Constant) {
+				Constant<?> c = (Constant<?>)e;
+				sb.append(c.getType().getName()).append(':').append(c.getValue());
+				return true;
+			} else if(e instanceof NumericBooleanExpression) {
+				NumericBooleanExpression n = (NumericBooleanExpression)e;
+				return binary(n.getComparator(), n.getLeft(), n.getRight());
+			} else if(e instanceof NumericCompound) {
+				NumericCompound<?> n = (NumericCompound<?>)e;
+				return binary(n.getOperator(), n.getLeft(), n.getRight());
+			} else if(e instanceof PropositionalCompound) {
+				PropositionalCompound n = (PropositionalCompound)e;
+				return binary(n.getOperator(), n.getLeft(), n.getRight());
+			} else if(e instanceof BitvectorExpression) {
+				BitvectorExpression<?> n = (BitvectorExpression<?>)e;
+				return binary(n.getOperator(), n.getLeft(), n.getRight());
+			} else if(e instanceof Negation) {
+				sb.append("(not ");
+				boolean ok = print(((Negation)e).getNegated());
+				sb.append(')');
+				return ok;
+			} else if(e instanceof UnaryMinus) {
+				sb.append("(neg ");
+				boolean ok = print(((UnaryMinus<?>)e).getNegated());
+				sb.append(')');
+				return ok;
+			} else if(e instanceof CastExpression) {
+				CastExpression<?,?> n = (CastExpression<?,?>)e;
+				sb.append("(cast ").append(n.getType().getName()).append(' ');
+				boolean ok = print(n.getCasted());
+				sb.append(')');
+				return ok;
+			} else if(e instanceof FunctionExpression) {
+				FunctionExpression<?> n = (FunctionExpression<?>)e;
+				sb.append('(').append(n.getFunction().getName());
+				for(Expression<?> arg : n.getArgs()) {
+					sb.append(' ');
+					if(!print(arg))
+						return false;
+				}
+				sb.append(')');
+				return true;
+			}
+			return false;
+		}
+
+		private boolean binary(Object op, Expression<?> left, Expression<?> right) {
+			sb.append('(').append(op).append(' ');
+			if(!print(left))
+				return false;
+			sb.append(' ');
+			if(!print(right))
+				return false;
+			sb.append(')');
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return sb.toString();
+		}
+	}
+}
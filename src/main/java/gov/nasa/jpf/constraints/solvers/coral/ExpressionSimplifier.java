@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Set;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.LogicalOperator;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.PropositionalCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.types.IntegerType;
+import gov.nasa.jpf.constraints.types.RealType;
+import gov.nasa.jpf.constraints.types.Type;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+/*
+ * Rewrites a formula into an equivalent, smaller one before it is translated
+ * to Coral:
+ *
+ *   - subexpressions without variables are folded into constants
+ *   - neutral and absorbing operands are removed (x * 1, x - 0, i * 0, ...)
+ *   - double negations and double unary minus are removed
+ *   - constants are moved to the right of comparisons, and negated integer
+ *     comparisons are replaced by the opposite comparison
+ *   - conjunctions and disjunctions with a constant operand are short-cut
+ *
+ * Every rewrite preserves the value of the formula under Java semantics, so
+ * rules that could change it for NaN, infinities or negative zero are only
+ * applied to integers.
+ */
+final class ExpressionSimplifier {
+
+	private static final Constant<Boolean> TRUE = new Constant<Boolean>(BuiltinTypes.BOOL, true);
+	private static final Constant<Boolean> FALSE = new Constant<Boolean>(BuiltinTypes.BOOL, false);
+
+	private ExpressionSimplifier() { }
+
+	@SuppressWarnings("unchecked")
+	static Expression<Boolean> simplify(Expression<Boolean> f) {
+		return (Expression<Boolean>)rewrite(f);
+	}
+
+	/*
+	 * SAT or UNSAT if f simplifies to a constant, null otherwise. A SAT model
+	 * gives the variables of f their default values.
+	 */
+	static SolveResult decide(Expression<Boolean> f, Valuation result) {
+		Expression<Boolean> s = simplify(f);
+		if(!(s instanceof Constant))
+			return null;
+		if(!((Constant<Boolean>)s).getValue())
+			return new SolveResult(Result.UNSAT, null);
+		Valuation model = new Valuation();
+		Set<Variable<?>> vars = ExpressionUtil.freeVariables(f);
+		for(Variable<?> v : vars)
+			ValuationUtil.setDefault(model, v);
+		//e.g., a division by zero the simplifier cut away
+		if(!ValuationUtil.isModel(f, vars, model))
+			return null;
+		if(result != null)
+			ValuationUtil.copy(model, result);
+		return new SolveResult(Result.SAT, result);
+	}
+
+	private static Expression<?> rewrite(Expression<?> e) {
+		if(e instanceof Variable || e instanceof Constant)
+			return e;
+		Expression<?>[] children = e.getChildren();
+		Expression<?>[] rewritten = new Expression<?>[children.length];
+		boolean changed = false, constant = true;
+		for(int i = 0; i < children.length; i++) {
+			rewritten[i] = rewrite(children[i]);
+			changed |= rewritten[i] != children[i];
+			constant &= rewritten[i] instanceof Constant;
+		}
+		if(changed)
+			e = e.duplicate(rewritten);
+		if(constant) {
+			Expression<?> folded = fold(e);
+			if(folded != null)
+				return folded;
+		}
+		if(e instanceof PropositionalCompound)
+			return propositional((PropositionalCompound)e);
+		else if(e instanceof Negation)
+			return negation((Negation)e);
+		else if(e instanceof NumericBooleanExpression)
+			return comparison((NumericBooleanExpression)e);
+		else if(e instanceof NumericCompound)
+			return compound((NumericCompound<?>)e);
+		else if(e instanceof UnaryMinus && ((UnaryMinus<?>)e).getNegated() instanceof UnaryMinus)
+			return ((UnaryMinus<?>)((UnaryMinus<?>)e).getNegated()).getNegated();
+		return e;
+	}
+
+	/*
+	 * The value of a variable free expression, or null if it cannot be
+	 * evaluated (e.g., integer division by zero)
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Expression<?> fold(Expression<?> e) {
+		try {
+			Object value = e.evaluate(new Valuation());
+			return (value == null) ? null : new Constant((Type)e.getType(), value);
+		} catch(RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private static Expression<?> propositional(PropositionalCompound pc) {
+		Expression<Boolean> l = pc.getLeft(), r = pc.getRight();
+		switch(pc.getOperator()) {
+		case AND:
+			if(isFalse(l) || isFalse(r))
+				return FALSE;
+			if(isTrue(l))
+				return r;
+			if(isTrue(r))
+				return l;
+			break;
+		case OR:
+			if(isTrue(l) || isTrue(r))
+				return TRUE;
+			if(isFalse(l))
+				return r;
+			if(isFalse(r))
+				return l;
+			break;
+		default:
+			break;
+		}
+		return pc;
+	}
+
+	private static Expression<?> negation(Negation n) {
+		Expression<Boolean> neg = n.getNegated();
+		if(neg instanceof Negation)
+			return ((Negation)neg).getNegated();
+		if(neg instanceof NumericBooleanExpression) {
+			NumericBooleanExpression c = (NumericBooleanExpression)neg;
+			//!(a < b) is a >= b unless one side is NaN
+			if(c.getLeft().getType() instanceof IntegerType)
+				return new NumericBooleanExpression(c.getLeft(), negate(c.getComparator()), c.getRight());
+		}
+		return n;
+	}
+
+	private static Expression<?> comparison(NumericBooleanExpression c) {
+		Expression<?> l = c.getLeft(), r = c.getRight();
+		if(l instanceof Constant && !(r instanceof Constant))
+			return new NumericBooleanExpression(r, mirror(c.getComparator()), l);
+		if(l instanceof Variable && l.equals(r) && l.getType() instanceof IntegerType) {
+			switch(c.getComparator()) {
+			case EQ:
+			case LE:
+			case GE:
+				return TRUE;
+			default:
+				return FALSE;
+			}
+		}
+		return c;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Expression<?> compound(NumericCompound<?> n) {
+		Expression<?> l = n.getLeft(), r = n.getRight();
+		Type<?> type = n.getType();
+		if(type instanceof IntegerType) {
+			switch(n.getOperator()) {
+			case PLUS:
+				if(isValue(l, 0))
+					return r;
+				if(isValue(r, 0))
+					return l;
+				break;
+			case MINUS:
+				if(isValue(r, 0))
+					return l;
+				if(isValue(l, 0))
+					return new UnaryMinus(r);
+				break;
+			case MUL:
+				if(isValue(l, 0) || isValue(r, 1))
+					return l;
+				if(isValue(r, 0) || isValue(l, 1))
+					return r;
+				break;
+			case DIV:
+				if(isValue(r, 1))
+					return l;
+				break;
+			default:
+				break;
+			}
+		} else if(type instanceof RealType) {
+			switch(n.getOperator()) {
+			case PLUS:
+				//only -0.0 is neutral: 0.0 + -0.0 is 0.0
+				if(isValue(r, -0.0))
+					return l;
+				if(isValue(l, -0.0))
+					return r;
+				break;
+			case MINUS:
+				if(isValue(r, 0.0))
+					return l;
+				break;
+			case MUL:
+				if(isValue(r, 1))
+					return l;
+				if(isValue(l, 1))
+					return r;
+				break;
+			case DIV:
+				if(isValue(r, 1))
+					return l;
+				break;
+			default:
+				break;
+			}
+		}
+		return n;
+	}
+
+	/*
+	 * Whether e is a constant with value v. Zeros of floating point types
+	 * must match in sign.
+	 */
+	private static boolean isValue(Expression<?> e, double v) {
+		if(!(e instanceof Constant))
+			return false;
+		Object val = ((Constant<?>)e).getValue();
+		if(val instanceof Double)
+			return Double.compare((Double)val, v) == 0;
+		if(val instanceof Float)
+			return Float.compare((Float)val, (float)v) == 0;
+		if(val instanceof Integer || val instanceof Long)
+			return ((Number)val).longValue() == v;
+		return false;
+	}
+
+	private static boolean isTrue(Expression<Boolean> e) {
+		return e instanceof Constant && Boolean.TRUE.equals(((Constant<Boolean>)e).getValue());
+	}
+
+	private static boolean isFalse(Expression<Boolean> e) {
+		return e instanceof Constant && Boolean.FALSE.equals(((Constant<Boolean>)e).getValue());
+	}
+
+	private static NumericComparator negate(NumericComparator cmp) {
+		switch(cmp) {
+		case EQ: return NumericComparator.NE;
+		case NE: return NumericComparator.EQ;
+		case LT: return NumericComparator.GE;
+		case LE: return NumericComparator.GT;
+		case GT: return NumericComparator.LE;
+		default: return NumericComparator.LT;
+		}
+	}
+
+	//the comparator with swapped operands
+	private static NumericComparator mirror(NumericComparator cmp) {
+		switch(cmp) {
+		case LT: return NumericComparator.GT;
+		case LE: return NumericComparator.GE;
+		case GT: return NumericComparator.LT;
+		case GE: return NumericComparator.LE;
+		default: return cmp;
+		}
+	}
+}
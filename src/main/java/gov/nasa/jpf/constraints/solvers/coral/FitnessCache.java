@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.solvers.coral.CompiledFitness.Template;
+import gov.nasa.jpf.constraints.solvers.coral.CompiledFitness.Shape;
+
+/*
+ * Bounded LRU cache of compiled fitness functions keyed by the shape of the
+ * formula. Path conditions from the same program location usually differ only
+ * in their constants, so most of them are instantiated from a cached node tree
+ * with their own constants instead of being compiled.
+ */
+final class FitnessCache {
+
+	private final LinkedHashMap<String, Template> templates;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	FitnessCache(final int capacity) {
+		this.templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/*
+	 * Throws an UnsupportedOperationException like CompiledFitness.compile
+	 */
+	CompiledFitness get(Expression<Boolean> f) {
+		Shape shape = new Shape(f);
+		String key = shape.getKey();
+		Template template;
+		synchronized(this.templates) {
+			template = this.templates.get(key);
+		}
+		if(template != null) {
+			this.hits.incrementAndGet();
+		} else {
+			this.misses.incrementAndGet();
+			template = CompiledFitness.compile(f, shape);
+			synchronized(this.templates) {
+				this.templates.put(key, template);
+			}
+		}
+		return new CompiledFitness(template, shape);
+	}
+
+	long getHits() {
+		return this.hits.get();
+	}
+
+	long getMisses() {
+		return this.misses.get();
+	}
+}
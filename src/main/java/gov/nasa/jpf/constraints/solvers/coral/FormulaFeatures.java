@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+
+/*
+ * Syntactic features of a formula that hint at how hard it is for Coral's
+ * search: the dimension of the search space and how rugged the fitness
+ * landscape is likely to be.
+ */
+final class FormulaFeatures {
+
+	private final int nodes;
+	private final int depth;
+	private final int variables;
+	//products, quotients and remainders of two non-constant terms
+	private final int nonlinear;
+	//calls of math functions
+	private final int transcendental;
+
+	private FormulaFeatures(int nodes, int depth, int variables, int nonlinear, int transcendental) {
+		this.nodes = nodes;
+		this.depth = depth;
+		this.variables = variables;
+		this.nonlinear = nonlinear;
+		this.transcendental = transcendental;
+	}
+
+	static FormulaFeatures of(Expression<?> e) {
+		Counter c = new Counter();
+		int depth = c.visit(e);
+		return new FormulaFeatures(c.nodes, depth, c.vars.size(), c.nonlinear, c.transcendental);
+	}
+
+	private static class Counter {
+		int nodes = 0;
+		int nonlinear = 0;
+		int transcendental = 0;
+		final Set<Variable<?>> vars = new HashSet<>();
+
+		//returns the depth of e
+		int visit(Expression<?> e) {
+			this.nodes++;
+			if(e instanceof Variable)
+				this.vars.add((Variable<?>)e);
+			else if(e instanceof FunctionExpression)
+				this.transcendental++;
+			else if(e instanceof NumericCompound) {
+				NumericCompound<?> nc = (NumericCompound<?>)e;
+				NumericOperator op = nc.getOperator();
+				if(op != NumericOperator.PLUS && op != NumericOperator.MINUS &&
+				    !(nc.getLeft() instanceof Constant) && !(nc.getRight() instanceof Constant))
+					this.nonlinear++;
+			}
+			int depth = 0;
+			for(Expression<?> child : e.getChildren())
+				depth = Math.max(depth, visit(child));
+			return depth + 1;
+		}
+	}
+
+	int getNodes() {
+		return this.nodes;
+	}
+
+	int getDepth() {
+		return this.depth;
+	}
+
+	int getVariables() {
+		return this.variables;
+	}
+
+	int getNonlinear() {
+		return this.nonlinear;
+	}
+
+	int getTranscendental() {
+		return this.transcendental;
+	}
+
+	@Override
+	public String toString() {
+		return "nodes=" + this.nodes +
+			   ", depth=" + this.depth +
+			   ", variables=" + this.variables +
+			   ", nonlinear=" + this.nonlinear +
+			   ", transcendental=" + this.transcendental;
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+/*
+ * Closed interval of doubles. All operations round outwards, so the result
+ * encloses every value the operation can have in double arithmetic for
+ * arguments from the operand intervals (NaN results are ignored: a NaN never
+ * satisfies a comparison we propagate through).
+ */
+final class Interval {
+
+	static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	static final Interval EMPTY = new Interval(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+	static final Interval UNIT = new Interval(-1, 1);
+	static final Interval NON_NEGATIVE = new Interval(0, Double.POSITIVE_INFINITY);
+
+	private static final double TWO_PI = 2 * Math.PI;
+
+	final double lo;
+	final double hi;
+
+	private Interval(double lo, double hi) {
+		this.lo = lo;
+		this.hi = hi;
+	}
+
+	static Interval of(double lo, double hi) {
+		if(Double.isNaN(lo))
+			lo = Double.NEGATIVE_INFINITY;
+		if(Double.isNaN(hi))
+			hi = Double.POSITIVE_INFINITY;
+		return (lo > hi) ? EMPTY : new Interval(lo, hi);
+	}
+
+	static Interval point(double v) {
+		return of(v, v);
+	}
+
+	boolean isEmpty() {
+		return this.lo > this.hi;
+	}
+
+	boolean isEntire() {
+		return this.lo == Double.NEGATIVE_INFINITY && this.hi == Double.POSITIVE_INFINITY;
+	}
+
+	boolean contains(double v) {
+		return this.lo <= v && v <= this.hi;
+	}
+
+	//one ulp down or up, for results that are correctly rounded
+	private static double down(double v) {
+		return Math.nextAfter(v, Double.NEGATIVE_INFINITY);
+	}
+
+	private static double up(double v) {
+		return Math.nextAfter(v, Double.POSITIVE_INFINITY);
+	}
+
+	//library functions are only accurate to a few ulps
+	private static double down2(double v) {
+		return down(down(v));
+	}
+
+	private static double up2(double v) {
+		return up(up(v));
+	}
+
+	Interval intersect(Interval o) {
+		if(isEmpty() || o.isEmpty())
+			return EMPTY;
+		return of(Math.max(this.lo, o.lo), Math.min(this.hi, o.hi));
+	}
+
+	/*
+	 * The smallest interval containing both
+	 */
+	Interval hull(Interval o) {
+		if(isEmpty())
+			return o;
+		if(o.isEmpty())
+			return this;
+		return of(Math.min(this.lo, o.lo), Math.max(this.hi, o.hi));
+	}
+
+	/*
+	 * Also contains the values that round into this interval
+	 */
+	Interval widen() {
+		return isEmpty() ? this : of(down(this.lo), up(this.hi));
+	}
+
+	Interval negate() {
+		return isEmpty() ? this : of(-this.hi, -this.lo);
+	}
+
+	Interval add(Interval o) {
+		if(isEmpty() || o.isEmpty())
+			return EMPTY;
+		return of(down(this.lo + o.lo), up(this.hi + o.hi));
+	}
+
+	Interval subtract(Interval o) {
+		return add(o.negate());
+	}
+
+	Interval multiply(Interval o) {
+		if(isEmpty() || o.isEmpty())
+			return EMPTY;
+		double a = mul(this.lo, o.lo), b = mul(this.lo, o.hi);
+		double c = mul(this.hi, o.lo), d = mul(this.hi, o.hi);
+		return of(down(Math.min(Math.min(a, b), Math.min(c, d))), up(Math.max(Math.max(a, b), Math.max(c, d))));
+	}
+
+	/*
+	 * The values v with v / o in this, i.e., this * o, except that 0 * inf
+	 * is not 0: any v divided by an infinite o gives 0, and v / 0 is infinite
+	 */
+	Interval multiplyInverse(Interval o) {
+		if(isEmpty() || o.isEmpty())
+			return EMPTY;
+		double a = this.lo * o.lo, b = this.lo * o.hi;
+		double c = this.hi * o.lo, d = this.hi * o.hi;
+		if(Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d))
+			return ENTIRE;
+		return of(down(Math.min(Math.min(a, b), Math.min(c, d))), up(Math.max(Math.max(a, b), Math.max(c, d))));
+	}
+
+	//0 * inf is NaN in Java, which never satisfies a constraint
+	private static double mul(double a, double b) {
+		double r = a * b;
+		return Double.isNaN(r) ? 0 : r;
+	}
+
+	Interval divide(Interval o) {
+		if(isEmpty() || o.isEmpty())
+			return EMPTY;
+		if(o.contains(0))
+			return ENTIRE;
+		double a = this.lo / o.lo, b = this.lo / o.hi;
+		double c = this.hi / o.lo, d = this.hi / o.hi;
+		if(Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d))
+			return ENTIRE;
+		return of(down(Math.min(Math.min(a, b), Math.min(c, d))), up(Math.max(Math.max(a, b), Math.max(c, d))));
+	}
+
+	Interval sqrt() {
+		Interval x = intersect(NON_NEGATIVE);
+		if(x.isEmpty())
+			return EMPTY;
+		return of(Math.max(0, down(Math.sqrt(x.lo))), up(Math.sqrt(x.hi)));
+	}
+
+	Interval square() {
+		if(isEmpty())
+			return EMPTY;
+		Interval a = abs();
+		return of(down(a.lo * a.lo), up(a.hi * a.hi));
+	}
+
+	Interval abs() {
+		if(isEmpty() || this.lo >= 0)
+			return this;
+		if(this.hi <= 0)
+			return negate();
+		return of(0, Math.max(-this.lo, this.hi));
+	}
+
+	Interval exp() {
+		if(isEmpty())
+			return EMPTY;
+		return of(Math.max(0, down2(Math.exp(this.lo))), up2(Math.exp(this.hi)));
+	}
+
+	Interval log() {
+		Interval x = intersect(NON_NEGATIVE);
+		if(x.isEmpty())
+			return EMPTY;
+		return of(down2(Math.log(x.lo)), up2(Math.log(x.hi)));
+	}
+
+	Interval atan() {
+		if(isEmpty())
+			return EMPTY;
+		return of(down2(Math.atan(this.lo)), up2(Math.atan(this.hi)));
+	}
+
+	Interval sin() {
+		if(isEmpty())
+			return EMPTY;
+		if(Double.isInfinite(this.lo) || Double.isInfinite(this.hi) || this.hi - this.lo >= TWO_PI)
+			return UNIT;
+		double min = Math.min(Math.sin(this.lo), Math.sin(this.hi));
+		double max = Math.max(Math.sin(this.lo), Math.sin(this.hi));
+		//extrema at pi/2 + 2k*pi and -pi/2 + 2k*pi; be generous about rounding of the multiples
+		if(containsShifted(Math.PI / 2))
+			max = 1;
+		if(containsShifted(-Math.PI / 2))
+			min = -1;
+		return of(Math.max(-1, down2(min)), Math.min(1, up2(max)));
+	}
+
+	Interval cos() {
+		return add(point(Math.PI / 2)).widen().sin();
+	}
+
+	private boolean containsShifted(double offset) {
+		double k = Math.ceil((this.lo - offset) / TWO_PI - 1e-9);
+		return offset + k * TWO_PI <= this.hi + 1e-9 * Math.max(1, Math.abs(this.hi));
+	}
+
+	/*
+	 * this ^ e for a point exponent; everything else is not narrowed
+	 */
+	Interval pow(Interval e) {
+		if(isEmpty() || e.isEmpty())
+			return EMPTY;
+		if(e.lo != e.hi)
+			return ENTIRE;
+		double p = e.lo;
+		boolean oddInteger = p == Math.rint(p) && Math.abs(p) < 1e15 && ((long)p) % 2 != 0;
+		if(this.lo >= 0) {
+			//a lower bound 0 includes -0.0, and pow(-0.0, p) is -oo for odd negative p
+			if(this.lo == 0 && p < 0 && oddInteger)
+				return ENTIRE;
+			double a = Math.pow(this.lo, p), b = Math.pow(this.hi, p);
+			return of(Math.max(0, down2(Math.min(a, b))), up2(Math.max(a, b)));
+		}
+		if(p == Math.rint(p) && Math.abs(p) < 1e15 && p > 0) {
+			if(((long)p) % 2 == 0) {
+				Interval a = abs();
+				return of(Math.max(0, down2(Math.pow(a.lo, p))), up2(Math.pow(a.hi, p)));
+			}
+			return of(down2(Math.pow(this.lo, p)), up2(Math.pow(this.hi, p)));
+		}
+		return ENTIRE;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof Interval))
+			return false;
+		Interval i = (Interval)o;
+		return (isEmpty() && i.isEmpty()) ||
+			   (Double.compare(this.lo, i.lo) == 0 && Double.compare(this.hi, i.hi) == 0);
+	}
+
+	@Override
+	public int hashCode() {
+		return isEmpty() ? 0 : Double.valueOf(this.lo).hashCode() * 31 + Double.valueOf(this.hi).hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "[]" : "[" + this.lo + ", " + this.hi + "]";
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+
+/*
+ * The Double comparisons among the top-level conjuncts of a formula in
+ * RealPaver syntax. Variables are renamed to v0, v1, ... since the names of
+ * jConstraints variables need not be valid identifiers. Conjuncts with other
+ * types or operators are left out, so the boxes of the problem enclose the
+ * models of the formula.
+ *
+ * Interval solvers compute with reals, which only agrees with Java's doubles
+ * as long as values are merely compared: x + 1.0 = x has no real solution,
+ * but many double ones.
+ */
+final class IntervalProblem {
+
+	private final Map<Variable<?>, String> names = new LinkedHashMap<>();
+	//variables of the constraints that made it into the problem
+	private final Set<Variable<?>> declared = new LinkedHashSet<>();
+	private final List<String> constraints = new ArrayList<>();
+	private boolean exact = true;
+
+	IntervalProblem(Expression<Boolean> f) {
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		ExpressionKey.flattenConjunction(f, conjuncts);
+		for(Expression<Boolean> c : conjuncts) {
+			if(!(c instanceof NumericBooleanExpression))
+				continue;
+			NumericBooleanExpression nbe = (NumericBooleanExpression)c;
+			String op;
+			switch(nbe.getComparator()) {
+			case EQ: op = " = "; break;
+			//the hull of a strict comparison is the non-strict one
+			case LT:
+			case LE: op = " <= "; break;
+			case GT:
+			case GE: op = " >= "; break;
+			default: continue;
+			}
+			StringBuilder sb = new StringBuilder();
+			List<Variable<?>> vars = new ArrayList<>();
+			if(term(nbe.getLeft(), sb, vars) && term(nbe.getRight(), sb.append(op), vars)) {
+				this.constraints.add(sb.toString());
+				this.declared.addAll(vars);
+				this.exact &= isComparison(nbe);
+			}
+		}
+	}
+
+	boolean isEmpty() {
+		return this.constraints.isEmpty();
+	}
+
+	/*
+	 * Whether the constraints only compare variables and constants, so that
+	 * they have no real solution iff they have no double solution
+	 */
+	boolean isExact() {
+		return this.exact;
+	}
+
+	private static boolean isComparison(NumericBooleanExpression c) {
+		for(Expression<?> side : new Expression<?>[] {c.getLeft(), c.getRight()}) {
+			if(!(side instanceof Variable || side instanceof Constant))
+				return false;
+		}
+		return true;
+	}
+
+	/*
+	 * The variable called name in the problem, or null
+	 */
+	Variable<?> getVariable(String name) {
+		for(Variable<?> v : this.declared) {
+			if(this.names.get(v).equals(name))
+				return v;
+		}
+		return null;
+	}
+
+	private boolean term(Expression<?> e, StringBuilder sb, List<Variable<?>> vars) {
+		if(!(e.getType() instanceof DoubleType))
+			return false;
+		if(e instanceof Variable) {
+			Variable<?> v = (Variable<?>)e;
+			String name = this.names.get(v);
+			if(name == null) {
+				name = "v" + this.names.size();
+				this.names.put(v, name);
+			}
+			vars.add(v);
+			sb.append(name);
+			return true;
+		} else if(e instanceof Constant) {
+			Object v = ((Constant<?>)e).getValue();
+			if(!(v instanceof Double) || ((Double)v).isNaN() || ((Double)v).isInfinite())
+				return false;
+			sb.append('(').append(v).append(')');
+			return true;
+		} else if(e instanceof UnaryMinus) {
+			sb.append("(-");
+			boolean ok = term(((UnaryMinus<?>)e).getNegated(), sb, vars);
+			sb.append(')');
+			return ok;
+		} else if(e instanceof NumericCompound) {
+			NumericCompound<?> nc = (NumericCompound<?>)e;
+			String op;
+			switch(nc.getOperator()) {
+			case PLUS: op = " + "; break;
+			case MINUS: op = " - "; break;
+			case MUL: op = " * "; break;
+			case DIV: op = " / "; break;
+			default: return false;
+			}
+			sb.append('(');
+			boolean ok = term(nc.getLeft(), sb, vars) && term(nc.getRight(), sb.append(op), vars);
+			sb.append(')');
+			return ok;
+		} else if(e instanceof FunctionExpression) {
+			FunctionExpression<?> fe = (FunctionExpression<?>)e;
+			Expression<?>[] args = fe.getArgs();
+			String name = fe.getFunction().getName();
+			switch(name) {
+			case "sin": case "cos": case "tan":
+			case "asin": case "acos": case "atan":
+			case "exp": case "log": case "sqrt":
+				sb.append(name).append('(');
+				boolean ok = term(args[0], sb, vars);
+				sb.append(')');
+				return ok;
+			case "pow":
+				if(!(args[1] instanceof Constant))
+					return false;
+				Object p = ((Constant<?>)args[1]).getValue();
+				if(!(p instanceof Double) || (Double)p != Math.rint((Double)p) || (Double)p < 1 || (Double)p > 64)
+					return false;
+				sb.append('(');
+				ok = term(args[0], sb, vars);
+				sb.append(")^").append(((Double)p).intValue());
+				return ok;
+			default:
+				return false;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Variables\n");
+		int i = 0;
+		for(Variable<?> v : this.declared) {
+			sb.append("  ").append(this.names.get(v)).append(" in ]-oo, +oo[");
+			sb.append((++i < this.declared.size()) ? ",\n" : ";\n");
+		}
+		sb.append("Constraints\n");
+		for(i = 0; i < this.constraints.size(); i++) {
+			sb.append("  ").append(this.constraints.get(i));
+			sb.append((i + 1 < this.constraints.size()) ? ",\n" : ";\n");
+		}
+		return sb.toString();
+	}
+}
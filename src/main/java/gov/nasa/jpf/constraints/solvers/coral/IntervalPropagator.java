@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+
+/*
+ * HC4 style constraint propagation over the Double comparisons among the
+ * top-level conjuncts of a formula. Every comparison is evaluated bottom-up in
+ * interval arithmetic and then narrowed top-down, shrinking the boxes of its
+ * variables, until the boxes no longer change. An empty box means the formula
+ * is UNSAT.
+ *
+ * Everything but Double typed +, -, *, /, unary minus, sin, cos, sqrt, exp,
+ * log, atan and pow (with a constant exponent) is treated as unknown, which
+ * only costs precision.
+ */
+final class IntervalPropagator {
+
+	private static final int MAX_ROUNDS = 16;
+
+	private final List<NumericBooleanExpression> constraints = new ArrayList<>();
+	private final Map<Variable<?>, Interval> box = new LinkedHashMap<>();
+	//bottom-up intervals of the comparison currently revised
+	private final Map<Expression<?>, Interval> forward = new IdentityHashMap<>();
+	private boolean changed;
+
+	private IntervalPropagator() { }
+
+	/*
+	 * The narrowed boxes of the Double variables, or null if the formula is UNSAT
+	 */
+	static Map<Variable<?>, Interval> propagate(Expression<Boolean> f) {
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		ExpressionKey.flattenConjunction(f, conjuncts);
+		IntervalPropagator p = new IntervalPropagator();
+		for(Expression<Boolean> c : conjuncts) {
+			if(c instanceof NumericBooleanExpression && isDouble(((NumericBooleanExpression)c).getLeft()))
+				p.constraints.add((NumericBooleanExpression)c);
+		}
+		if(p.constraints.isEmpty())
+			return p.box;
+		for(int round = 0; round < MAX_ROUNDS; round++) {
+			p.changed = false;
+			for(NumericBooleanExpression c : p.constraints) {
+				if(!p.revise(c))
+					return null;
+			}
+			if(!p.changed)
+				break;
+		}
+		return p.box;
+	}
+
+	/*
+	 * Bounds of the narrowed boxes as constraints on the variables
+	 */
+	static List<Expression<Boolean>> toConstraints(Map<Variable<?>, Interval> box) {
+		List<Expression<Boolean>> res = new ArrayList<>();
+		for(Map.Entry<Variable<?>, Interval> e : box.entrySet()) {
+			Interval i = e.getValue();
+			if(!Double.isInfinite(i.lo))
+				res.add(new NumericBooleanExpression(e.getKey(), NumericComparator.GE,
+				    new Constant<Double>(BuiltinTypes.DOUBLE, i.lo)));
+			if(!Double.isInfinite(i.hi))
+				res.add(new NumericBooleanExpression(e.getKey(), NumericComparator.LE,
+				    new Constant<Double>(BuiltinTypes.DOUBLE, i.hi)));
+		}
+		return res;
+	}
+
+	private static boolean isDouble(Expression<?> e) {
+		return e.getType() instanceof DoubleType;
+	}
+
+	/*
+	 * Returns false if c cannot be satisfied within the current boxes
+	 */
+	private boolean revise(NumericBooleanExpression c) {
+		this.forward.clear();
+		Interval l = eval(c.getLeft());
+		Interval r = eval(c.getRight());
+		switch(c.getComparator()) {
+		case EQ:
+			l = l.intersect(r);
+			r = l;
+			break;
+		case LT:
+		case LE:
+			l = l.intersect(Interval.of(Double.NEGATIVE_INFINITY, r.hi));
+			r = r.intersect(Interval.of(l.lo, Double.POSITIVE_INFINITY));
+			break;
+		case GT:
+		case GE:
+			l = l.intersect(Interval.of(r.lo, Double.POSITIVE_INFINITY));
+			r = r.intersect(Interval.of(Double.NEGATIVE_INFINITY, l.hi));
+			break;
+		default:
+			return true;
+		}
+		return narrow(c.getLeft(), l) && narrow(c.getRight(), r);
+	}
+
+	private Interval eval(Expression<?> e) {
+		Interval res = Interval.ENTIRE;
+		if(e instanceof Variable && isDouble(e)) {
+			res = this.box.get(e);
+			if(res == null) {
+				res = Interval.ENTIRE;
+				this.box.put((Variable<?>)e, res);
+			}
+		} else if(e instanceof Constant && isDouble(e)) {
+			Object v = ((Constant<?>)e).getValue();
+			if(v instanceof Double && !((Double)v).isNaN())
+				res = Interval.point((Double)v);
+		} else if(e instanceof UnaryMinus && isDouble(e)) {
+			res = eval(((UnaryMinus<?>)e).getNegated()).negate();
+		} else if(e instanceof NumericCompound && isDouble(e)) {
+			NumericCompound<?> nc = (NumericCompound<?>)e;
+			Interval l = eval(nc.getLeft());
+			Interval r = eval(nc.getRight());
+			switch(nc.getOperator()) {
+			case PLUS: res = l.add(r); break;
+			case MINUS: res = l.subtract(r); break;
+			case MUL: res = l.multiply(r); break;
+			case DIV: res = l.divide(r); break;
+			default: break;
+			}
+		} else if(e instanceof FunctionExpression && isDouble(e)) {
+			FunctionExpression<?> fe = (FunctionExpression<?>)e;
+			Expression<?>[] args = fe.getArgs();
+			Interval[] a = new Interval[args.length];
+			for(int i = 0; i < args.length; i++)
+				a[i] = isDouble(args[i]) ? eval(args[i]) : Interval.ENTIRE;
+			switch(fe.getFunction().getName()) {
+			case "sin": res = a[0].sin(); break;
+			case "cos": res = a[0].cos(); break;
+			case "sqrt": res = a[0].sqrt(); break;
+			case "exp": res = a[0].exp(); break;
+			case "log": res = a[0].log(); break;
+			case "atan": res = a[0].atan(); break;
+			case "pow": res = a[0].pow(a[1]); break;
+			default: break;
+			}
+		}
+		this.forward.put(e, res);
+		return res;
+	}
+
+	/*
+	 * Narrows e to z and projects that onto the children of e. Returns false
+	 * if that leaves e without values.
+	 */
+	private boolean narrow(Expression<?> e, Interval z) {
+		Interval fwd = this.forward.get(e);
+		if(fwd != null)
+			z = z.intersect(fwd);
+		if(z.isEmpty())
+			return false;
+		if(fwd != null && z.equals(fwd) && !(e instanceof Variable))
+			return true;
+		if(e instanceof Variable && isDouble(e)) {
+			Interval old = this.box.get(e);
+			if(!z.equals(old)) {
+				this.box.put((Variable<?>)e, z);
+				this.changed = true;
+			}
+			return true;
+		}
+		if(!isDouble(e))
+			return true;
+		//the result of an operation is rounded, so its exact value is a bit off
+		Interval w = z.widen();
+		if(e instanceof UnaryMinus) {
+			return narrow(((UnaryMinus<?>)e).getNegated(), w.negate());
+		} else if(e instanceof NumericCompound) {
+			NumericCompound<?> nc = (NumericCompound<?>)e;
+			Expression<?> le = nc.getLeft(), re = nc.getRight();
+			Interval l = this.forward.get(le), r = this.forward.get(re);
+			switch(nc.getOperator()) {
+			case PLUS:
+				return narrow(le, w.subtract(r)) && narrow(re, w.subtract(l));
+			case MINUS:
+				return narrow(le, w.add(r)) && narrow(re, l.subtract(w));
+			case MUL:
+				return (r.contains(0) || narrow(le, w.divide(r))) &&
+				       (l.contains(0) || narrow(re, w.divide(l)));
+			case DIV:
+				//x / 0 is infinite for every x > 0, so x is only bounded if y cannot be 0
+				return (r.contains(0) || narrow(le, w.multiplyInverse(r))) &&
+				       (w.contains(0) || narrow(re, l.divide(w)));
+			default:
+				return true;
+			}
+		} else if(e instanceof FunctionExpression) {
+			FunctionExpression<?> fe = (FunctionExpression<?>)e;
+			Expression<?> arg = fe.getArgs()[0];
+			if(!isDouble(arg))
+				return true;
+			switch(fe.getFunction().getName()) {
+			case "sqrt":
+				return narrow(arg, w.intersect(Interval.NON_NEGATIVE).square());
+			case "exp":
+				return narrow(arg, w.log());
+			case "log":
+				return narrow(arg, w.exp());
+			default:
+				return true;
+			}
+		}
+		return true;
+	}
+}
@@ -36,10 +36,21 @@ public class IntervalSolver {
 	
 	private Solver intervalSolver;
 	private String path;
+	private int workers;
 	
-	public IntervalSolver(Solver intervalSolver, String path) {
+	/*
+	 * With workers > 0, path is the command of a persistent interval solver
+	 * process (see IntervalSolverProcess), and up to workers of them are kept
+	 * running instead of letting Coral launch the solver for every query.
+	 */
+	public IntervalSolver(Solver intervalSolver, String path, int workers) {
 		this.intervalSolver = intervalSolver;
 		this.path = path;
+		this.workers = workers;
+	}
+	
+	public IntervalSolver(Solver intervalSolver, String path) {
+		this(intervalSolver, path, 0);
 	}
 	
 	public IntervalSolver(Solver intervalSolver) {
@@ -53,4 +64,12 @@ public class IntervalSolver {
 	public String getPath() {
 		return this.path;
 	}
+	
+	public int getWorkers() {
+		return this.workers;
+	}
+	
+	boolean usesWorkers() {
+		return this.intervalSolver != Solver.NONE && this.workers > 0;
+	}
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+
+/*
+ * An interval solver running as a long-lived external process, which saves
+ * the process launch and the temporary files Coral needs for each query.
+ * Requests and responses are streamed over stdin and stdout:
+ *
+ *   - a query is an IntervalProblem in RealPaver syntax followed by a line
+ *     "end". The process answers with lines "<var> in [<lo>, <hi>]" (several
+ *     boxes of a variable are joined) or a line "empty" if there is no
+ *     solution, followed by a line "end".
+ *   - a line "ping" is answered by a line "pong".
+ *
+ * Other output lines are ignored. Neither RealPaver nor ICOS speak this
+ * protocol, so the process usually is a small wrapper around one of them.
+ * A new process must answer a ping within the timeout, so a command that does
+ * not speak the protocol is noticed right away. The process should exit when
+ * its stdin is closed.
+ */
+final class IntervalSolverProcess implements IntervalWorker {
+
+	private static final ThreadFactory READERS = new DaemonThreadFactory("coral-interval-reader");
+	//end of the output of the process, compared by identity
+	private static final String EOF = new String("eof");
+	private static final String END = "end";
+	private static final Pattern BOX =
+	    Pattern.compile("\\s*(\\w+)\\s+in\\s+[\\[\\]]\\s*([^,\\s]+)\\s*,\\s*([^\\[\\]\\s]+)\\s*[\\[\\]]\\s*");
+	//workers that have been idle for longer are pinged before they are reused
+	private static final long PING_AFTER_MILLIS = 1000;
+
+	private final Process process;
+	private final Writer in;
+	private final BlockingQueue<String> out = new LinkedBlockingQueue<>();
+	private boolean broken = false;
+	private long lastUsed = System.currentTimeMillis();
+
+	IntervalSolverProcess(String command, long timeoutMillis) throws IOException {
+		this.process = new ProcessBuilder(command).redirectError(Redirect.INHERIT).start();
+		this.in = new BufferedWriter(new OutputStreamWriter(this.process.getOutputStream(), StandardCharsets.US_ASCII));
+		final BufferedReader reader = new BufferedReader(
+		    new InputStreamReader(this.process.getInputStream(), StandardCharsets.US_ASCII));
+		READERS.newThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					String line;
+					while((line = reader.readLine()) != null)
+						out.add(line);
+				} catch(IOException e) {
+					//the process is gone, which the next request notices
+				} finally {
+					out.add(EOF);
+				}
+			}
+		}).start();
+		try {
+			exchange("ping\n", "pong", timeoutMillis);
+		} catch(IOException e) {
+			throw new IOException("Interval solver " + command + " does not answer ping: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Map<Variable<?>, Interval> solve(Expression<Boolean> f, long timeoutMillis) throws IOException {
+		IntervalProblem problem = new IntervalProblem(f);
+		Map<Variable<?>, Interval> box = new LinkedHashMap<>();
+		if(problem.isEmpty())
+			return box;
+		for(String line : exchange(problem.toString() + END + "\n", END, timeoutMillis)) {
+			//only comparisons have no real solution exactly if they have no double solution
+			if(line.trim().equalsIgnoreCase("empty"))
+				return problem.isExact() ? null : new LinkedHashMap<Variable<?>, Interval>();
+			Matcher m = BOX.matcher(line);
+			if(!m.matches())
+				continue;
+			Variable<?> v = problem.getVariable(m.group(1));
+			if(v == null)
+				continue;
+			//the process computes with reals, so its bounds may be a bit off for doubles
+			Interval i = Interval.of(parseBound(m.group(2)), parseBound(m.group(3))).widen();
+			Interval old = box.get(v);
+			box.put(v, (old == null) ? i : old.hull(i));
+		}
+		return box;
+	}
+
+	private static double parseBound(String s) {
+		if(s.endsWith("oo"))
+			return s.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		return Double.parseDouble(s);
+	}
+
+	@Override
+	public boolean isHealthy(long timeoutMillis) {
+		if(this.broken)
+			return false;
+		try {
+			this.process.exitValue();
+			return false;
+		} catch(IllegalThreadStateException e) {
+			//still running
+		}
+		if(System.currentTimeMillis() - this.lastUsed < PING_AFTER_MILLIS)
+			return true;
+		try {
+			exchange("ping\n", "pong", timeoutMillis);
+			return true;
+		} catch(IOException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Sends request and returns the lines up to the terminator. Any failure
+	 * leaves the process in an unknown state, so it is closed.
+	 */
+	private List<String> exchange(String request, String terminator, long timeoutMillis) throws IOException {
+		if(this.broken)
+			throw new IOException("Interval solver process has been closed");
+		try {
+			this.in.write(request);
+			this.in.flush();
+			List<String> lines = new ArrayList<>();
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			while(true) {
+				String line;
+				if(timeoutMillis > 0) {
+					long remaining = deadline - System.currentTimeMillis();
+					line = (remaining > 0) ? this.out.poll(remaining, TimeUnit.MILLISECONDS) : null;
+				} else {
+					line = this.out.take();
+				}
+				if(line == null)
+					throw new IOException("Interval solver did not answer within " + timeoutMillis + "ms");
+				if(line == EOF)
+					throw new IOException("Interval solver process exited");
+				if(line.trim().equals(terminator)) {
+					this.lastUsed = System.currentTimeMillis();
+					return lines;
+				}
+				lines.add(line);
+			}
+		} catch(IOException e) {
+			close();
+			throw e;
+		} catch(InterruptedException e) {
+			close();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the interval solver");
+		}
+	}
+
+	@Override
+	public void close() {
+		this.broken = true;
+		try {
+			this.in.close();
+		} catch(IOException e) {
+			//the process is destroyed anyway
+		}
+		this.process.destroy();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.io.IOException;
+import java.util.Map;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+
+/*
+ * A long-lived interval solver that boxes the solutions of one formula at a
+ * time. Workers are not thread safe; IntervalWorkerPool hands each of them to
+ * one thread at a time.
+ */
+interface IntervalWorker {
+
+	/*
+	 * The hull of the boxes of f, or null if f provably has no solution under
+	 * Java semantics. Variables without a box can take any value. An
+	 * IOException means the worker is unusable.
+	 */
+	Map<Variable<?>, Interval> solve(Expression<Boolean> f, long timeoutMillis) throws IOException;
+
+	/*
+	 * Whether the worker can still answer queries
+	 */
+	boolean isHealthy(long timeoutMillis);
+
+	void close();
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+
+/*
+ * Up to size interval solver workers that are started on demand and reused
+ * across queries. Workers are checked before they are handed out and replaced
+ * when they fail. A failing worker only costs precision: the query then goes
+ * to the search with the boxes it had before. Pools that are still open when
+ * the JVM exits are closed by a shutdown hook shared by all pools.
+ */
+final class IntervalWorkerPool {
+
+	interface Factory {
+		IntervalWorker create() throws IOException;
+	}
+
+	static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+	private static final Logger logger = Logger.getLogger(IntervalWorkerPool.class.getName());
+	private static final Set<IntervalWorkerPool> OPEN =
+	    Collections.newSetFromMap(new ConcurrentHashMap<IntervalWorkerPool, Boolean>());
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for(IntervalWorkerPool pool : new ArrayList<>(OPEN))
+					pool.close();
+			}
+		}, "coral-interval-shutdown"));
+	}
+
+	private final Factory factory;
+	private final int size;
+	private final long timeoutMillis;
+	private final BlockingQueue<IntervalWorker> idle = new LinkedBlockingQueue<>();
+	private final AtomicInteger started = new AtomicInteger();
+	//workers that are idle or handed out, guarded by this
+	private int live = 0;
+	private volatile boolean closed = false;
+
+	IntervalWorkerPool(Factory factory, int size, long timeoutMillis) {
+		if(size < 1)
+			throw new CoralConfigurationException("Interval solver pool needs at least one worker");
+		this.factory = factory;
+		this.size = size;
+		this.timeoutMillis = timeoutMillis;
+		OPEN.add(this);
+	}
+
+	/*
+	 * Starts a worker, so that a command that cannot be run or does not speak
+	 * the protocol is reported when the solver is built and not by slow
+	 * queries later
+	 */
+	void validate() {
+		try {
+			release(borrow());
+		} catch(IOException e) {
+			close();
+			throw new CoralConfigurationException("Cannot start interval solver: " + e.getMessage(), e);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new CoralConfigurationException("Interrupted while starting the interval solver", e);
+		}
+	}
+
+	/*
+	 * Intersects box with the boxes a worker finds for f. Returns null if f
+	 * has no solution.
+	 */
+	Map<Variable<?>, Interval> narrow(Expression<Boolean> f, Map<Variable<?>, Interval> box) {
+		IntervalWorker w;
+		try {
+			w = borrow();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return box;
+		} catch(IOException e) {
+			logger.log(Level.WARNING, "Cannot start interval solver", e);
+			return box;
+		}
+		Map<Variable<?>, Interval> found;
+		try {
+			found = w.solve(f, this.timeoutMillis);
+		} catch(IOException e) {
+			logger.log(Level.WARNING, "Interval solver failed, replacing it", e);
+			discard(w);
+			return box;
+		}
+		release(w);
+		if(found == null)
+			return null;
+		Map<Variable<?>, Interval> narrowed = new LinkedHashMap<>(box);
+		for(Map.Entry<Variable<?>, Interval> e : found.entrySet()) {
+			Interval i = e.getValue();
+			Interval old = narrowed.get(e.getKey());
+			if(old != null)
+				i = i.intersect(old);
+			//the worker computes with reals, so this does not prove that there is no double solution
+			if(i.isEmpty())
+				return box;
+			narrowed.put(e.getKey(), i);
+		}
+		return narrowed;
+	}
+
+	private IntervalWorker borrow() throws IOException, InterruptedException {
+		while(true) {
+			if(this.closed)
+				throw new IOException("Interval solver pool has been closed");
+			IntervalWorker w = this.idle.poll();
+			if(w == null) {
+				boolean create;
+				synchronized(this) {
+					create = this.live < this.size;
+					if(create)
+						this.live++;
+				}
+				if(create)
+					return start();
+				//workers that are discarded meanwhile free a slot, so don't wait forever
+				w = this.idle.poll(100, TimeUnit.MILLISECONDS);
+				if(w == null)
+					continue;
+			}
+			if(w.isHealthy(this.timeoutMillis))
+				return w;
+			logger.fine("Replacing unhealthy interval solver");
+			discard(w);
+		}
+	}
+
+	private IntervalWorker start() throws IOException {
+		try {
+			IntervalWorker w = this.factory.create();
+			this.started.incrementAndGet();
+			return w;
+		} catch(IOException | RuntimeException e) {
+			synchronized(this) {
+				this.live--;
+			}
+			throw e;
+		}
+	}
+
+	private void release(IntervalWorker w) {
+		this.idle.add(w);
+		//the pool may have been closed meanwhile
+		if(this.closed)
+			close();
+	}
+
+	private void discard(IntervalWorker w) {
+		w.close();
+		synchronized(this) {
+			this.live--;
+		}
+	}
+
+	/*
+	 * How many workers have been started so far
+	 */
+	int getStarted() {
+		return this.started.get();
+	}
+
+	void close() {
+		this.closed = true;
+		OPEN.remove(this);
+		IntervalWorker w;
+		while((w = this.idle.poll()) != null)
+			discard(w);
+	}
+}
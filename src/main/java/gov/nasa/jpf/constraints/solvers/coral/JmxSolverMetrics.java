@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+
+/*
+ * Histogram and counter based metrics that can be published as a standard
+ * MBean, e.g., to be watched with jconsole.
+ */
+public class JmxSolverMetrics implements SolverMetrics, JmxSolverMetricsMBean {
+
+	public static final String DOMAIN = "gov.nasa.jpf.constraints.solvers.coral";
+
+	private final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+	private final LatencyHistogram formulaNodes = new LatencyHistogram();
+	private final LatencyHistogram formulaVariables = new LatencyHistogram();
+	private final LatencyHistogram iterations = new LatencyHistogram();
+
+	private final AtomicLong sat = new AtomicLong();
+	private final AtomicLong unsat = new AtomicLong();
+	private final AtomicLong dontKnow = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+
+	private ObjectName name;
+
+	public JmxSolverMetrics() {
+		for(Phase p : Phase.values())
+			this.latencies.put(p, new LatencyHistogram());
+	}
+
+	/*
+	 * Registers this object with the platform MBean server as
+	 * gov.nasa.jpf.constraints.solvers.coral:type=CoralSolver,name=<name>
+	 */
+	public synchronized JmxSolverMetrics register(String name) {
+		try {
+			ObjectName on = new ObjectName(DOMAIN + ":type=CoralSolver,name=" + ObjectName.quote(name));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if(server.isRegistered(on))
+				server.unregisterMBean(on);
+			server.registerMBean(this, on);
+			this.name = on;
+		} catch(JMException e) {
+			throw new CoralConfigurationException("Could not register solver metrics as " + name, e);
+		}
+		return this;
+	}
+
+	public synchronized void unregister() {
+		if(this.name == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+		} catch(JMException e) {
+			//already gone
+		}
+		this.name = null;
+	}
+
+	public LatencyHistogram getLatencies(Phase phase) {
+		return this.latencies.get(phase);
+	}
+
+	@Override
+	public void recordLatency(Phase phase, long nanos) {
+		this.latencies.get(phase).record(nanos);
+	}
+
+	@Override
+	public void recordFormula(int nodes, int variables) {
+		this.formulaNodes.record(nodes);
+		this.formulaVariables.record(variables);
+	}
+
+	@Override
+	public void recordIterations(int iterations) {
+		if(iterations > 0)
+			this.iterations.record(iterations);
+	}
+
+	@Override
+	public void recordResult(SolveResult result) {
+		if(result.getResult() == Result.SAT)
+			this.sat.incrementAndGet();
+		else if(result.getResult() == Result.UNSAT)
+			this.unsat.incrementAndGet();
+		else
+			this.dontKnow.incrementAndGet();
+		switch(result.getReason()) {
+		case TIMEOUT:
+			this.timeouts.incrementAndGet();
+			break;
+		case CANCELLED:
+			this.cancelled.incrementAndGet();
+			break;
+		case ERROR:
+			this.errors.incrementAndGet();
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void recordFailure() {
+		this.failures.incrementAndGet();
+	}
+
+	@Override
+	public long getQueries() {
+		return getSatCount() + getUnsatCount() + getDontKnowCount() + getFailureCount();
+	}
+
+	@Override
+	public long getSatCount() {
+		return this.sat.get();
+	}
+
+	@Override
+	public long getUnsatCount() {
+		return this.unsat.get();
+	}
+
+	@Override
+	public long getDontKnowCount() {
+		return this.dontKnow.get();
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return this.timeouts.get();
+	}
+
+	@Override
+	public long getCancelledCount() {
+		return this.cancelled.get();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return this.errors.get();
+	}
+
+	@Override
+	public long getFailureCount() {
+		return this.failures.get();
+	}
+
+	private static double micros(double nanos) {
+		return nanos / 1000.0;
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+	@Override
+	public double getMeanTranslationMicros() {
+		return micros(getLatencies(Phase.TRANSLATION).getMean());
+	}
+
+	@Override
+	public long getP99TranslationMicros() {
+		return micros(getLatencies(Phase.TRANSLATION).getPercentile(0.99));
+	}
+
+	@Override
+	public double getMeanSearchMicros() {
+		return micros(getLatencies(Phase.SEARCH).getMean());
+	}
+
+	@Override
+	public long getP50SearchMicros() {
+		return micros(getLatencies(Phase.SEARCH).getPercentile(0.5));
+	}
+
+	@Override
+	public long getP99SearchMicros() {
+		return micros(getLatencies(Phase.SEARCH).getPercentile(0.99));
+	}
+
+	@Override
+	public long getMaxSearchMicros() {
+		return micros(getLatencies(Phase.SEARCH).getMax());
+	}
+
+	@Override
+	public double getMeanExtractionMicros() {
+		return micros(getLatencies(Phase.EXTRACTION).getMean());
+	}
+
+	@Override
+	public long getP99ExtractionMicros() {
+		return micros(getLatencies(Phase.EXTRACTION).getPercentile(0.99));
+	}
+
+	@Override
+	public double getMeanTotalMicros() {
+		return micros(getLatencies(Phase.TOTAL).getMean());
+	}
+
+	@Override
+	public long getP50TotalMicros() {
+		return micros(getLatencies(Phase.TOTAL).getPercentile(0.5));
+	}
+
+	@Override
+	public long getP99TotalMicros() {
+		return micros(getLatencies(Phase.TOTAL).getPercentile(0.99));
+	}
+
+	@Override
+	public long getMaxTotalMicros() {
+		return micros(getLatencies(Phase.TOTAL).getMax());
+	}
+
+	@Override
+	public double getMeanFormulaNodes() {
+		return this.formulaNodes.getMean();
+	}
+
+	@Override
+	public long getMaxFormulaNodes() {
+		return this.formulaNodes.getMax();
+	}
+
+	@Override
+	public double getMeanFormulaVariables() {
+		return this.formulaVariables.getMean();
+	}
+
+	@Override
+	public double getMeanIterations() {
+		return this.iterations.getMean();
+	}
+
+	@Override
+	public void reset() {
+		for(LatencyHistogram h : this.latencies.values())
+			h.reset();
+		this.formulaNodes.reset();
+		this.formulaVariables.reset();
+		this.iterations.reset();
+		this.sat.set(0);
+		this.unsat.set(0);
+		this.dontKnow.set(0);
+		this.timeouts.set(0);
+		this.cancelled.set(0);
+		this.errors.set(0);
+		this.failures.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "JmxSolverMetrics[sat=" + getSatCount() +
+			   ", unsat=" + getUnsatCount() +
+			   ", dont_know=" + getDontKnowCount() +
+			   ", errors=" + getErrorCount() +
+			   ", failures=" + getFailureCount() +
+			   ", search={" + getLatencies(Phase.SEARCH) + "}" +
+			   ", total={" + getLatencies(Phase.TOTAL) + "}]";
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+/*
+ * Management interface of JmxSolverMetrics. Latencies are in microseconds.
+ */
+public interface JmxSolverMetricsMBean {
+
+	long getQueries();
+	long getSatCount();
+	long getUnsatCount();
+	long getDontKnowCount();
+	long getTimeoutCount();
+	long getCancelledCount();
+	long getErrorCount();
+	long getFailureCount();
+
+	double getMeanTranslationMicros();
+	long getP99TranslationMicros();
+
+	double getMeanSearchMicros();
+	long getP50SearchMicros();
+	long getP99SearchMicros();
+	long getMaxSearchMicros();
+
+	double getMeanExtractionMicros();
+	long getP99ExtractionMicros();
+
+	double getMeanTotalMicros();
+	long getP50TotalMicros();
+	long getP99TotalMicros();
+	long getMaxTotalMicros();
+
+	double getMeanFormulaNodes();
+	long getMaxFormulaNodes();
+	double getMeanFormulaVariables();
+	double getMeanIterations();
+
+	void reset();
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Lock-free histogram of non-negative values with power-of-two buckets.
+ * Bucket i holds values in [2^(i-1), 2^i), so percentiles are reported as the
+ * upper bound of their bucket, i.e., they are off by at most a factor of two.
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		if(value < 0)
+			value = 0;
+		this.buckets.incrementAndGet(bucket(value));
+		this.count.incrementAndGet();
+		this.sum.addAndGet(value);
+		long m;
+		while(value > (m = this.max.get()) && !this.max.compareAndSet(m, value));
+	}
+
+	private static int bucket(long value) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	public long getSum() {
+		return this.sum.get();
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	public double getMean() {
+		long n = this.count.get();
+		return (n == 0) ? 0 : (double)this.sum.get() / n;
+	}
+
+	/*
+	 * p in [0, 1]. Returns 0 if nothing was recorded.
+	 */
+	public long getPercentile(double p) {
+		long n = this.count.get();
+		if(n == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(p * n));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += this.buckets.get(i);
+			if(seen >= rank)
+				return Math.min((i == 0) ? 0 : (1L << i) - 1, getMax());
+		}
+		return getMax();
+	}
+
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++)
+			this.buckets.set(i, 0);
+		this.count.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() +
+			   ", mean=" + getMean() +
+			   ", p50=" + getPercentile(0.5) +
+			   ", p99=" + getPercentile(0.99) +
+			   ", max=" + getMax();
+	}
+}
@@ -0,0 +1,656 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.UnaryMinus;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.FloatType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt32Type;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt64Type;
+import gov.nasa.jpf.constraints.types.Type;
+
+/*
+ * Exact decision procedure for conjunctions of linear comparisons over
+ * SInt32, SInt64, Float and Double variables, based on Fourier-Motzkin
+ * elimination over the rationals.
+ *
+ * Elimination uses mathematical arithmetic, so UNSAT is only reported if
+ * that agrees with Java semantics: integer arithmetic must not overflow on
+ * the ranges known for its operands, floating point values may only be
+ * compared but not computed with (sums and products are rounded), and no
+ * floating point comparison may be negated (NaN satisfies the negation). An
+ * UNSAT linear part makes the whole formula UNSAT. SAT is only reported for
+ * fully linear formulas, and only with a model that satisfies the formula
+ * under Java semantics. Everything else (nonlinear formulas, integer gaps
+ * that the rational relaxation does not see, possible overflows and
+ * rounding, too many derived constraints) is left to Coral.
+ */
+final class LinearSolver {
+
+	private static final Logger logger = Logger.getLogger(LinearSolver.class.getName());
+
+	//give up when elimination produces more constraints than this
+	private static final int MAX_CONSTRAINTS = 2000;
+
+	private static final Rational INT_MIN = Rational.of(Integer.MIN_VALUE);
+	private static final Rational INT_MAX = Rational.of(Integer.MAX_VALUE);
+	private static final Rational LONG_MIN = Rational.of(Long.MIN_VALUE);
+	private static final Rational LONG_MAX = Rational.of(Long.MAX_VALUE);
+	private static final Rational TWO = Rational.of(2);
+
+	/*
+	 * sum of coeffs[v] * v + constant
+	 */
+	private static final class Term {
+		final Map<Variable<?>, Rational> coeffs = new LinkedHashMap<>();
+		Rational constant = Rational.ZERO;
+
+		static Term constant(Rational c) {
+			Term t = new Term();
+			t.constant = c;
+			return t;
+		}
+
+		boolean isConstant() {
+			return this.coeffs.isEmpty();
+		}
+
+		Term add(Term o, boolean negate) {
+			Term t = new Term();
+			t.coeffs.putAll(this.coeffs);
+			for(Map.Entry<Variable<?>, Rational> e : o.coeffs.entrySet()) {
+				Rational c = negate ? e.getValue().negate() : e.getValue();
+				Rational old = t.coeffs.get(e.getKey());
+				Rational sum = (old == null) ? c : old.add(c);
+				if(sum.signum() == 0)
+					t.coeffs.remove(e.getKey());
+				else
+					t.coeffs.put(e.getKey(), sum);
+			}
+			t.constant = negate ? this.constant.subtract(o.constant) : this.constant.add(o.constant);
+			return t;
+		}
+
+		Term scale(Rational f) {
+			Term t = new Term();
+			if(f.signum() != 0) {
+				for(Map.Entry<Variable<?>, Rational> e : this.coeffs.entrySet())
+					t.coeffs.put(e.getKey(), e.getValue().multiply(f));
+			}
+			t.constant = this.constant.multiply(f);
+			return t;
+		}
+	}
+
+	/*
+	 * sum of coeffs[i] * x_i < rhs if strict, <= rhs otherwise. Normalized such
+	 * that the first non-zero coefficient is 1 or -1.
+	 */
+	private static final class Constraint {
+		final Rational[] coeffs;
+		final Rational rhs;
+		final boolean strict;
+
+		Constraint(Rational[] coeffs, Rational rhs, boolean strict) {
+			Rational lead = null;
+			for(Rational c : coeffs) {
+				if(c.signum() != 0) {
+					lead = c.abs();
+					break;
+				}
+			}
+			if(lead != null && !lead.equals(Rational.ONE)) {
+				for(int i = 0; i < coeffs.length; i++)
+					coeffs[i] = coeffs[i].divide(lead);
+				rhs = rhs.divide(lead);
+			}
+			this.coeffs = coeffs;
+			this.rhs = rhs;
+			this.strict = strict;
+		}
+
+		boolean isTrivial() {
+			for(Rational c : this.coeffs) {
+				if(c.signum() != 0)
+					return false;
+			}
+			return true;
+		}
+
+		//only meaningful for trivial constraints
+		boolean holds() {
+			return this.strict ? this.rhs.signum() > 0 : this.rhs.signum() >= 0;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Constraint))
+				return false;
+			Constraint c = (Constraint)o;
+			return this.strict == c.strict && this.rhs.equals(c.rhs) && Arrays.equals(this.coeffs, c.coeffs);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(this.coeffs) * 31 + this.rhs.hashCode() + (this.strict ? 1 : 0);
+		}
+	}
+
+	private final Set<Variable<?>> vars = new LinkedHashSet<>();
+	//left - right of a comparison, the comparator relates it to zero
+	private final List<Term> terms = new ArrayList<>();
+	private final List<NumericComparator> comparators = new ArrayList<>();
+	//terms of comparisons between variables and constants only
+	private final BitSet plain = new BitSet();
+	//sides of comparisons that compute something
+	private final List<Expression<?>> arithmetic = new ArrayList<>();
+	private boolean negatedReal = false;
+	private boolean falseConjunct = false;
+	private boolean unsat = false;
+
+	private LinearSolver() { }
+
+	/*
+	 * Returns SAT (writing the model to result, if it is not null) or UNSAT if
+	 * that can be decided, null otherwise.
+	 */
+	static SolveResult solve(Expression<Boolean> f, Valuation result) {
+		List<Expression<Boolean>> conjuncts = new ArrayList<>();
+		ExpressionKey.flattenConjunction(f, conjuncts);
+		LinearSolver ls = new LinearSolver();
+		boolean allLinear = true;
+		for(Expression<Boolean> c : conjuncts)
+			allLinear &= ls.addConjunct(c);
+		if(ls.falseConjunct)
+			return new SolveResult(Result.UNSAT, null);
+		if(ls.terms.isEmpty())
+			return null;
+		Valuation model = ls.solve();
+		if(ls.unsat)
+			return ls.isExact() ? new SolveResult(Result.UNSAT, null) : null;
+		if(model == null || !allLinear || !ValuationUtil.isModel(f, ls.vars, model))
+			return null;
+		if(result != null)
+			ValuationUtil.copy(model, result);
+		return new SolveResult(Result.SAT, result);
+	}
+
+	/*
+	 * Returns false if c is not a linear comparison
+	 */
+	private boolean addConjunct(Expression<Boolean> c) {
+		boolean negated = false;
+		while(c instanceof Negation) {
+			c = ((Negation)c).getNegated();
+			negated = !negated;
+		}
+		if(c instanceof Constant) {
+			if(((Constant<Boolean>)c).getValue() == negated)
+				this.falseConjunct = true;
+			return true;
+		}
+		if(!(c instanceof NumericBooleanExpression))
+			return false;
+		NumericBooleanExpression nbe = (NumericBooleanExpression)c;
+		NumericComparator cmp = negated ? negate(nbe.getComparator()) : nbe.getComparator();
+		if(cmp == NumericComparator.NE)
+			return false;
+		Term l = term(nbe.getLeft());
+		Term r = (l != null) ? term(nbe.getRight()) : null;
+		if(r == null)
+			return false;
+		if(negated && !(isIntegral(nbe.getLeft().getType()) && isIntegral(nbe.getRight().getType())))
+			this.negatedReal = true;
+		boolean atoms = true;
+		for(Expression<?> side : new Expression<?>[] {nbe.getLeft(), nbe.getRight()}) {
+			if(!(side instanceof Variable || side instanceof Constant)) {
+				this.arithmetic.add(side);
+				atoms = false;
+			}
+		}
+		if(atoms)
+			this.plain.set(this.terms.size());
+		this.terms.add(l.add(r, true));
+		this.comparators.add(cmp);
+		return true;
+	}
+
+	/*
+	 * Whether the terms have the same solutions under mathematical and Java
+	 * arithmetic
+	 */
+	private boolean isExact() {
+		if(this.negatedReal)
+			return false;
+		Map<Variable<?>, Rational[]> ranges = plainRanges();
+		for(Expression<?> e : this.arithmetic) {
+			if(!isExact(e, ranges))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isExact(Expression<?> e, Map<Variable<?>, Rational[]> ranges) {
+		if(e instanceof Variable || e instanceof Constant)
+			return true;
+		Expression<?>[] children;
+		if(e instanceof UnaryMinus) {
+			children = new Expression<?>[] {((UnaryMinus<?>)e).getNegated()};
+		} else if(e instanceof NumericCompound) {
+			//floating point sums and products are rounded
+			if(!isIntegral(e.getType()))
+				return false;
+			NumericCompound<?> nc = (NumericCompound<?>)e;
+			children = new Expression<?>[] {nc.getLeft(), nc.getRight()};
+		} else {
+			return false;
+		}
+		for(Expression<?> c : children) {
+			if(!isExact(c, ranges))
+				return false;
+		}
+		if(!isIntegral(e.getType()))
+			return true;
+		Rational[] range = range(e, ranges);
+		Rational[] limits = typeRange(e.getType());
+		return range[0].compareTo(limits[0]) >= 0 && range[1].compareTo(limits[1]) <= 0;
+	}
+
+	/*
+	 * Bounds of the integer variables that are compared to constants. These
+	 * comparisons are exact, so every solution respects the bounds.
+	 */
+	private Map<Variable<?>, Rational[]> plainRanges() {
+		Map<Variable<?>, Rational[]> ranges = new LinkedHashMap<>();
+		for(int i = this.plain.nextSetBit(0); i >= 0; i = this.plain.nextSetBit(i + 1)) {
+			Term t = this.terms.get(i);
+			if(t.coeffs.size() != 1)
+				continue;
+			Map.Entry<Variable<?>, Rational> e = t.coeffs.entrySet().iterator().next();
+			Variable<?> v = e.getKey();
+			if(!isIntegral(v.getType()))
+				continue;
+			//a * v + k cmp 0, i.e., v cmp -k / a with the comparator flipped for a < 0
+			Rational bound = t.constant.negate().divide(e.getValue());
+			NumericComparator cmp = this.comparators.get(i);
+			boolean upper = (cmp == NumericComparator.LT || cmp == NumericComparator.LE);
+			boolean lower = (cmp == NumericComparator.GT || cmp == NumericComparator.GE);
+			if(e.getValue().signum() < 0) {
+				boolean tmp = upper;
+				upper = lower;
+				lower = tmp;
+			}
+			if(cmp == NumericComparator.EQ)
+				upper = lower = true;
+			Rational[] range = ranges.get(v);
+			if(range == null) {
+				range = typeRange(v.getType()).clone();
+				ranges.put(v, range);
+			}
+			if(upper && bound.compareTo(range[1]) < 0)
+				range[1] = bound;
+			if(lower && bound.compareTo(range[0]) > 0)
+				range[0] = bound;
+		}
+		return ranges;
+	}
+
+	/*
+	 * The range of the linear integer expression e, computed with mathematical
+	 * arithmetic
+	 */
+	private static Rational[] range(Expression<?> e, Map<Variable<?>, Rational[]> ranges) {
+		if(e instanceof Variable) {
+			Rational[] r = ranges.get(e);
+			return (r != null) ? r : typeRange(e.getType());
+		} else if(e instanceof Constant) {
+			Rational c = Rational.of((Number)((Constant<?>)e).getValue());
+			return new Rational[] {c, c};
+		} else if(e instanceof UnaryMinus) {
+			Rational[] r = range(((UnaryMinus<?>)e).getNegated(), ranges);
+			return new Rational[] {r[1].negate(), r[0].negate()};
+		}
+		NumericCompound<?> nc = (NumericCompound<?>)e;
+		Rational[] l = range(nc.getLeft(), ranges);
+		Rational[] r = range(nc.getRight(), ranges);
+		switch(nc.getOperator()) {
+		case PLUS:
+			return new Rational[] {l[0].add(r[0]), l[1].add(r[1])};
+		case MINUS:
+			return new Rational[] {l[0].subtract(r[1]), l[1].subtract(r[0])};
+		case MUL:
+			Rational[] p = {l[0].multiply(r[0]), l[0].multiply(r[1]), l[1].multiply(r[0]), l[1].multiply(r[1])};
+			Rational lo = p[0], hi = p[0];
+			for(Rational q : p) {
+				if(q.compareTo(lo) < 0) lo = q;
+				if(q.compareTo(hi) > 0) hi = q;
+			}
+			return new Rational[] {lo, hi};
+		default:
+			//not linear, so never part of a term
+			return typeRange(e.getType());
+		}
+	}
+
+	private static Rational[] typeRange(Type<?> type) {
+		return (type instanceof SInt32Type) ? new Rational[] {INT_MIN, INT_MAX} : new Rational[] {LONG_MIN, LONG_MAX};
+	}
+
+	private static NumericComparator negate(NumericComparator cmp) {
+		switch(cmp) {
+		case EQ: return NumericComparator.NE;
+		case NE: return NumericComparator.EQ;
+		case LT: return NumericComparator.GE;
+		case LE: return NumericComparator.GT;
+		case GT: return NumericComparator.LE;
+		case GE: return NumericComparator.LT;
+		default: throw new IllegalStateException("Unknown comparator " + cmp);
+		}
+	}
+
+	private static boolean isSupported(Type<?> type) {
+		return isIntegral(type) || type instanceof DoubleType || type instanceof FloatType;
+	}
+
+	private static boolean isIntegral(Type<?> type) {
+		return type instanceof SInt32Type || type instanceof SInt64Type;
+	}
+
+	/*
+	 * The linear term of e, or null if e is not linear
+	 */
+	private Term term(Expression<?> e) {
+		if(!isSupported(e.getType()))
+			return null;
+		if(e instanceof Variable) {
+			Variable<?> v = (Variable<?>)e;
+			this.vars.add(v);
+			Term t = new Term();
+			t.coeffs.put(v, Rational.ONE);
+			return t;
+		} else if(e instanceof Constant) {
+			Object value = ((Constant<?>)e).getValue();
+			Rational r = (value instanceof Number) ? Rational.of((Number)value) : null;
+			return (r == null) ? null : Term.constant(r);
+		} else if(e instanceof UnaryMinus) {
+			Term t = term(((UnaryMinus<?>)e).getNegated());
+			return (t == null) ? null : t.scale(Rational.ONE.negate());
+		} else if(e instanceof NumericCompound) {
+			NumericCompound<?> nc = (NumericCompound<?>)e;
+			Term l = term(nc.getLeft());
+			Term r = (l != null) ? term(nc.getRight()) : null;
+			if(r == null)
+				return null;
+			switch(nc.getOperator()) {
+			case PLUS:
+				return l.add(r, false);
+			case MINUS:
+				return l.add(r, true);
+			case MUL:
+				if(l.isConstant())
+					return r.scale(l.constant);
+				if(r.isConstant())
+					return l.scale(r.constant);
+				return null;
+			case DIV:
+				//integer division truncates
+				if(isIntegral(nc.getType()) || !r.isConstant() || r.constant.signum() == 0)
+					return null;
+				return l.scale(Rational.ONE.divide(r.constant));
+			default:
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Returns a model, or null if there is none (then unsat is set) or if
+	 * undecided
+	 */
+	private Valuation solve() {
+		List<Variable<?>> varList = new ArrayList<>(this.vars);
+		int n = varList.size();
+		Map<Variable<?>, Integer> index = new LinkedHashMap<>();
+		for(int i = 0; i < n; i++)
+			index.put(varList.get(i), i);
+
+		Set<Constraint> current = new LinkedHashSet<>();
+		for(int i = 0; i < this.terms.size(); i++) {
+			Term t = this.terms.get(i);
+			Rational[] coeffs = new Rational[n];
+			Arrays.fill(coeffs, Rational.ZERO);
+			for(Map.Entry<Variable<?>, Rational> e : t.coeffs.entrySet())
+				coeffs[index.get(e.getKey())] = e.getValue();
+			//coeffs * x + constant cmp 0
+			Rational c = t.constant;
+			switch(this.comparators.get(i)) {
+			case LT:
+				if(!add(current, new Constraint(coeffs, c.negate(), true))) return infeasible();
+				break;
+			case LE:
+				if(!add(current, new Constraint(coeffs, c.negate(), false))) return infeasible();
+				break;
+			case GT:
+				if(!add(current, new Constraint(negate(coeffs), c, true))) return infeasible();
+				break;
+			case GE:
+				if(!add(current, new Constraint(negate(coeffs), c, false))) return infeasible();
+				break;
+			case EQ:
+				if(!add(current, new Constraint(coeffs.clone(), c.negate(), false))) return infeasible();
+				if(!add(current, new Constraint(negate(coeffs), c, false))) return infeasible();
+				break;
+			default:
+				throw new IllegalStateException();
+			}
+		}
+		//the ranges of the integer types
+		for(int i = 0; i < n; i++) {
+			Type<?> type = varList.get(i).getType();
+			if(!isIntegral(type))
+				continue;
+			boolean isInt = type instanceof SInt32Type;
+			Rational[] up = new Rational[n];
+			Arrays.fill(up, Rational.ZERO);
+			up[i] = Rational.ONE;
+			add(current, new Constraint(up, isInt ? INT_MAX : LONG_MAX, false));
+			Rational[] low = new Rational[n];
+			Arrays.fill(low, Rational.ZERO);
+			low[i] = Rational.ONE.negate();
+			add(current, new Constraint(low, (isInt ? INT_MIN : LONG_MIN).negate(), false));
+		}
+
+		//Fourier-Motzkin, always eliminating the variable that produces the fewest constraints
+		boolean[] eliminated = new boolean[n];
+		int[] order = new int[n];
+		List<List<Constraint>> bounds = new ArrayList<>(n);
+		for(int i = 0; i < n; i++)
+			bounds.add(null);
+		for(int step = 0; step < n; step++) {
+			int best = -1;
+			long bestCost = Long.MAX_VALUE;
+			for(int v = 0; v < n; v++) {
+				if(eliminated[v])
+					continue;
+				long pos = 0, neg = 0;
+				for(Constraint c : current) {
+					int s = c.coeffs[v].signum();
+					if(s > 0) pos++;
+					else if(s < 0) neg++;
+				}
+				if(pos * neg < bestCost) {
+					bestCost = pos * neg;
+					best = v;
+				}
+			}
+			eliminated[best] = true;
+			order[step] = best;
+
+			List<Constraint> pos = new ArrayList<>();
+			List<Constraint> neg = new ArrayList<>();
+			Set<Constraint> next = new LinkedHashSet<>();
+			for(Constraint c : current) {
+				int s = c.coeffs[best].signum();
+				if(s > 0) pos.add(c);
+				else if(s < 0) neg.add(c);
+				else next.add(c);
+			}
+			List<Constraint> involved = new ArrayList<>(pos);
+			involved.addAll(neg);
+			bounds.set(best, involved);
+			for(Constraint p : pos) {
+				for(Constraint q : neg) {
+					if(!add(next, combine(p, q, best)))
+						return infeasible();
+				}
+			}
+			if(next.size() > MAX_CONSTRAINTS) {
+				logger.finer("Linear presolver gave up after " + step + " eliminations");
+				return null;
+			}
+			current = next;
+		}
+
+		//back substitution in reverse elimination order
+		Rational[] values = new Rational[n];
+		for(int step = n - 1; step >= 0; step--) {
+			int v = order[step];
+			Rational lo = null, hi = null;
+			boolean loStrict = false, hiStrict = false;
+			for(Constraint c : bounds.get(v)) {
+				Rational rest = Rational.ZERO;
+				for(int u = 0; u < n; u++) {
+					if(u != v && c.coeffs[u].signum() != 0)
+						rest = rest.add(c.coeffs[u].multiply(values[u]));
+				}
+				Rational bound = c.rhs.subtract(rest).divide(c.coeffs[v]);
+				if(c.coeffs[v].signum() > 0) {
+					int cmp = (hi == null) ? -1 : bound.compareTo(hi);
+					if(cmp < 0 || (cmp == 0 && c.strict)) {
+						hi = bound;
+						hiStrict = c.strict;
+					}
+				} else {
+					int cmp = (lo == null) ? 1 : bound.compareTo(lo);
+					if(cmp > 0 || (cmp == 0 && c.strict)) {
+						lo = bound;
+						loStrict = c.strict;
+					}
+				}
+			}
+			values[v] = pick(lo, loStrict, hi, hiStrict, isIntegral(varList.get(v).getType()));
+			if(values[v] == null)
+				return null;
+		}
+
+		Valuation model = new Valuation();
+		for(int i = 0; i < n; i++) {
+			Variable<?> var = varList.get(i);
+			Type<?> type = var.getType();
+			Object value;
+			if(type instanceof SInt32Type)
+				value = values[i].floor().intValue();
+			else if(type instanceof SInt64Type)
+				value = values[i].floor().longValue();
+			else if(type instanceof FloatType)
+				value = (float)values[i].doubleValue();
+			else
+				value = values[i].doubleValue();
+			ValuationUtil.setValue(model, var, value);
+		}
+		return model;
+	}
+
+	private Valuation infeasible() {
+		this.unsat = true;
+		return null;
+	}
+
+	/*
+	 * Adds c to constraints unless it is trivial. Returns false if c is trivially false.
+	 */
+	private static boolean add(Set<Constraint> constraints, Constraint c) {
+		if(c.isTrivial())
+			return c.holds();
+		constraints.add(c);
+		return true;
+	}
+
+	private static Rational[] negate(Rational[] coeffs) {
+		Rational[] res = new Rational[coeffs.length];
+		for(int i = 0; i < coeffs.length; i++)
+			res[i] = coeffs[i].negate();
+		return res;
+	}
+
+	/*
+	 * p has a positive, q a negative coefficient of v; the result does not contain v
+	 */
+	private static Constraint combine(Constraint p, Constraint q, int v) {
+		Rational fp = q.coeffs[v].negate();
+		Rational fq = p.coeffs[v];
+		Rational[] coeffs = new Rational[p.coeffs.length];
+		for(int i = 0; i < coeffs.length; i++)
+			coeffs[i] = (i == v) ? Rational.ZERO : p.coeffs[i].multiply(fp).add(q.coeffs[i].multiply(fq));
+		return new Constraint(coeffs, p.rhs.multiply(fp).add(q.rhs.multiply(fq)), p.strict || q.strict);
+	}
+
+	/*
+	 * A value between the bounds, preferring integers close to zero. Returns
+	 * null if an integral value is required but there is none.
+	 */
+	private static Rational pick(Rational lo, boolean loStrict, Rational hi, boolean hiStrict, boolean integral) {
+		BigInteger iLo = (lo == null) ? null : (loStrict ? lo.floor().add(BigInteger.ONE) : lo.ceil());
+		BigInteger iHi = (hi == null) ? null : (hiStrict ? hi.ceil().subtract(BigInteger.ONE) : hi.floor());
+		if(iLo == null || iHi == null || iLo.compareTo(iHi) <= 0) {
+			BigInteger v = BigInteger.ZERO;
+			if(iLo != null && v.compareTo(iLo) < 0)
+				v = iLo;
+			if(iHi != null && v.compareTo(iHi) > 0)
+				v = iHi;
+			return Rational.of(v, BigInteger.ONE);
+		}
+		if(integral)
+			return null;
+		//both bounds exist here, and elimination guarantees lo < hi or lo == hi without strictness
+		if(!loStrict)
+			return lo;
+		if(!hiStrict)
+			return hi;
+		return lo.add(hi).divide(TWO);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+/*
+ * Bounded pool of recently found models. Before a formula goes to Coral, it is
+ * evaluated concretely under each pooled model that assigns all of its free
+ * variables. Evaluation is exact, so a hit is always a genuine model.
+ */
+public class ModelPool {
+
+	private static final Logger logger = Logger.getLogger(ModelPool.class.getName());
+
+	private static class Model {
+		final Valuation valuation;
+		final Set<Variable<?>> variables = new HashSet<>();
+
+		Model(Valuation valuation) {
+			this.valuation = valuation;
+			for(ValuationEntry<?> e : valuation)
+				this.variables.add(e.getVariable());
+		}
+	}
+
+	private final int capacity;
+	//most recently found or reused model first
+	private final LinkedList<Model> models = new LinkedList<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	ModelPool(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/*
+	 * Writes a pooled model satisfying f to result and returns true, if there is one.
+	 */
+	boolean reuse(Expression<Boolean> f, Valuation result) {
+		return reuse(f, ExpressionUtil.freeVariables(f), result);
+	}
+
+	boolean reuse(Expression<Boolean> f, Collection<Variable<?>> freeVars, Valuation result) {
+		synchronized(this.models) {
+			Iterator<Model> it = this.models.iterator();
+			while(it.hasNext()) {
+				Model m = it.next();
+				if(!m.variables.containsAll(freeVars) || !satisfies(f, m.valuation))
+					continue;
+				if(result != null) {
+					for(Variable<?> v : freeVars)
+						ValuationUtil.setValue(result, v, m.valuation.getValue(v));
+				}
+				it.remove();
+				this.models.addFirst(m);
+				this.hits.incrementAndGet();
+				return true;
+			}
+		}
+		this.misses.incrementAndGet();
+		return false;
+	}
+
+	private static boolean satisfies(Expression<Boolean> f, Valuation val) {
+		try {
+			return f.evaluate(val);
+		} catch(RuntimeException e) { //e.g., division by zero
+			logger.finest("Evaluation of pooled model failed: " + e);
+			return false;
+		}
+	}
+
+	void add(Valuation model) {
+		Valuation copy = new Valuation();
+		ValuationUtil.copy(model, copy);
+		synchronized(this.models) {
+			this.models.addFirst(new Model(copy));
+			while(this.models.size() > this.capacity)
+				this.models.removeLast();
+		}
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public int size() {
+		synchronized(this.models) {
+			return this.models.size();
+		}
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public void clear() {
+		synchronized(this.models) {
+			this.models.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ModelPool[size=" + size() + "/" + this.capacity +
+			   ", hits=" + getHits() +
+			   ", misses=" + getMisses() + "]";
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Particle swarm search for a point where a compiled fitness is 0. Positions,
+ * velocities and personal bests are kept in a structure of arrays layout
+ * (position[d][p] is dimension d of particle p). The arrays grow as needed and
+ * are reused by later searches, so a search allocates nothing. Instances are
+ * not thread safe.
+ *
+ * In batched mode, the fitness of the whole swarm is evaluated at once by
+ * CompiledFitness.evaluate(xs, ...), directly on the position arrays. Swarms
+ * of at least PARALLEL_SIZE particles are then split across the common
+ * fork/join pool.
+ *
+ * The swarm uses the inertia and acceleration constants of SPSO 2006 and a
+ * global best topology. Integral dimensions are rounded after every move.
+ */
+final class ParticleSwarm {
+
+	private static final double INERTIA = 0.721;
+	private static final double ACCELERATION = 1.193;
+	//initial range of dimensions without bounds
+	static final double RANGE = 100;
+	static final int PARALLEL_SIZE = 1024;
+	private static final int CHUNK = 256;
+
+	private final int size;
+	private final boolean batched;
+	private final Random random = new Random();
+
+	private double[][] position = new double[0][];
+	private double[][] velocity = new double[0][];
+	private double[][] best = new double[0][];
+	private final double[] bestFitness;
+	private final double[] fitness;
+	private double[] globalBest = new double[0];
+	private double globalBestFitness;
+	private double[] x = new double[0];
+	private boolean[] integral = new boolean[0];
+	private double[][] work = new double[0][];
+
+	ParticleSwarm(int size, boolean batched) {
+		this.size = size;
+		this.batched = batched;
+		this.bestFitness = new double[size];
+		this.fitness = new double[size];
+	}
+
+	/*
+	 * Searches for at most iterations generations, starting in [lo, hi] and
+	 * from start if it is not null. Returns true if a point with fitness 0
+	 * was found, which is then returned by getBest().
+	 */
+	boolean search(CompiledFitness f, double[] lo, double[] hi, double[] start,
+	    long seed, int iterations, long deadlineNanos) throws InterruptedException {
+		int dim = f.getDimension();
+		ensureCapacity(dim, this.batched ? f.getSlots() : 0);
+		for(int d = 0; d < dim; d++)
+			this.integral[d] = f.isIntegral(d);
+		this.random.setSeed(seed);
+		this.globalBestFitness = Double.POSITIVE_INFINITY;
+
+		for(int d = 0; d < dim; d++) {
+			double w = hi[d] - lo[d];
+			double[] pos = this.position[d], vel = this.velocity[d];
+			for(int p = 0; p < this.size; p++) {
+				pos[p] = (p == 0 && start != null) ? start[d] : lo[d] + this.random.nextDouble() * w;
+				vel[p] = (this.random.nextDouble() - 0.5) * w;
+			}
+			round(d);
+			System.arraycopy(pos, 0, this.best[d], 0, this.size);
+		}
+		for(int p = 0; p < this.size; p++)
+			this.bestFitness[p] = Double.POSITIVE_INFINITY;
+		if(evaluate(f, dim))
+			return true;
+
+		for(int it = 1; it < iterations; it++) {
+			if((it & 63) == 0) {
+				if(Thread.interrupted())
+					throw new InterruptedException();
+				if(System.nanoTime() - deadlineNanos > 0)
+					return false;
+			}
+			move(dim);
+			if(evaluate(f, dim))
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * The best point of the last search
+	 */
+	double[] getBest() {
+		return this.globalBest;
+	}
+
+	double getBestFitness() {
+		return this.globalBestFitness;
+	}
+
+	private void ensureCapacity(int dim, int slots) {
+		if(this.position.length < dim) {
+			this.position = grow(this.position, dim);
+			this.velocity = grow(this.velocity, dim);
+			this.best = grow(this.best, dim);
+			this.globalBest = new double[dim];
+			this.x = new double[dim];
+			this.integral = new boolean[dim];
+		}
+		if(this.work.length < slots)
+			this.work = grow(this.work, slots);
+	}
+
+	//keeps the rows that are already there
+	private double[][] grow(double[][] rows, int n) {
+		double[][] res = new double[n][];
+		System.arraycopy(rows, 0, res, 0, rows.length);
+		for(int i = rows.length; i < n; i++)
+			res[i] = new double[this.size];
+		return res;
+	}
+
+	private void move(int dim) {
+		for(int d = 0; d < dim; d++) {
+			double[] pos = this.position[d], vel = this.velocity[d], pb = this.best[d];
+			double gb = this.globalBest[d];
+			for(int p = 0; p < this.size; p++) {
+				double v = INERTIA * vel[p]
+				    + ACCELERATION * this.random.nextDouble() * (pb[p] - pos[p])
+				    + ACCELERATION * this.random.nextDouble() * (gb - pos[p]);
+				vel[p] = v;
+				pos[p] += v;
+			}
+			round(d);
+		}
+	}
+
+	private void round(int d) {
+		if(!this.integral[d])
+			return;
+		double[] pos = this.position[d];
+		for(int p = 0; p < this.size; p++)
+			pos[p] = Math.rint(pos[p]);
+	}
+
+	/*
+	 * Evaluates all particles and updates the bests. Returns true once a
+	 * particle has fitness 0.
+	 */
+	private boolean evaluate(CompiledFitness f, int dim) {
+		if(!this.batched) {
+			for(int p = 0; p < this.size; p++) {
+				for(int d = 0; d < dim; d++)
+					this.x[d] = this.position[d][p];
+				this.fitness[p] = f.evaluate(this.x);
+			}
+		} else if(this.size >= PARALLEL_SIZE) {
+			ForkJoinPool.commonPool().invoke(new Evaluation(f, 0, this.size));
+		} else {
+			f.evaluate(this.position, 0, this.size, this.work, this.fitness);
+		}
+
+		for(int p = 0; p < this.size; p++) {
+			double fp = this.fitness[p];
+			if(fp != fp)
+				fp = CompiledFitness.PENALTY;
+			if(fp < this.bestFitness[p]) {
+				this.bestFitness[p] = fp;
+				for(int d = 0; d < dim; d++)
+					this.best[d][p] = this.position[d][p];
+				if(fp < this.globalBestFitness) {
+					this.globalBestFitness = fp;
+					for(int d = 0; d < dim; d++)
+						this.globalBest[d] = this.position[d][p];
+					if(fp == 0)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Batch evaluation of the particles from, ..., to - 1, split into chunks
+	 */
+	private final class Evaluation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CompiledFitness f;
+		private final int from;
+		private final int to;
+
+		Evaluation(CompiledFitness f, int from, int to) {
+			this.f = f;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.to - this.from <= CHUNK) {
+				this.f.evaluate(position, this.from, this.to, work, fitness);
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new Evaluation(this.f, this.from, mid), new Evaluation(this.f, mid, this.to));
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import coral.solvers.SolverKind;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.solvers.coral.SolveResult.Reason;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralSolverException;
+
+/*
+ * Races several solver configurations against each other. The first SAT or
+ * UNSAT answer wins and the remaining searches are cancelled. If a kind occurs
+ * more than once, every further occurrence is run with a different seed.
+ *
+ * Only members that do not need Coral's global state, i.e., PSO_OPT4J with the
+ * native swarm enabled, really run in parallel. Members searching with Coral
+ * take turns on the Coral lock, so for them the portfolio is a sequential
+ * fallback in completion order. Cancelled members that wait for the lock give
+ * up at once, and running Coral searches stop at their next deadline check if
+ * a timeout is set; without one, they run to their end.
+ */
+class Portfolio {
+
+	private static final Logger logger = Logger.getLogger(Portfolio.class.getName());
+	private static final AtomicInteger poolCounter = new AtomicInteger();
+
+	private final List<CoralSettings> members;
+	private final ExecutorService executor;
+
+	Portfolio(CoralSettings base, List<SolverKind> kinds, int threads) {
+		List<CoralSettings> m = new ArrayList<>();
+		for(int i = 0; i < kinds.size(); i++) {
+			SolverKind kind = kinds.get(i);
+			int occurrence = Collections.frequency(kinds.subList(0, i), kind);
+			m.add(base.withSolverKind(kind).withSeed(base.getSeed() + occurrence));
+		}
+		this.members = Collections.unmodifiableList(m);
+		this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, m.size())),
+		    new DaemonThreadFactory("coral-portfolio-" + poolCounter.incrementAndGet()));
+	}
+
+	List<CoralSettings> getMembers() {
+		return this.members;
+	}
+
+	SolveResult solve(final CoralSolver solver, final Expression<Boolean> f, Valuation result) {
+		CompletionService<SolveResult> ecs = new ExecutorCompletionService<>(this.executor);
+		List<Future<SolveResult>> futures = new ArrayList<>(this.members.size());
+		for(final CoralSettings settings : this.members) {
+			futures.add(ecs.submit(new Callable<SolveResult>() {
+				@Override
+				public SolveResult call() {
+					return solver.solve(f, new Valuation(), settings);
+				}
+			}));
+		}
+
+		SolveResult res = new SolveResult(Result.DONT_KNOW, null, Reason.INCOMPLETE);
+		try {
+			for(int i = 0; i < futures.size() && res.getResult() == Result.DONT_KNOW; i++) {
+				SolveResult answer;
+				try {
+					answer = ecs.take().get();
+				} catch(ExecutionException e) {
+					//the members share the formula, so none of them can translate it
+					if(e.getCause() instanceof CoralSolverException)
+						throw (CoralSolverException)e.getCause();
+					logger.severe("Portfolio member failed: " + e.getCause());
+					continue;
+				}
+				if(answer.getResult() == Result.SAT) {
+					if(result != null)
+						ValuationUtil.copy(answer.getValuation(), result);
+					res = new SolveResult(Result.SAT, result);
+				} else {
+					res = answer;
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			res = new SolveResult(Result.DONT_KNOW, null, Reason.CANCELLED);
+		} finally {
+			//see the class comment for how far this stops the losers
+			for(Future<SolveResult> fut : futures)
+				fut.cancel(true);
+		}
+		logger.fine("Portfolio result: " + res);
+		return res;
+	}
+
+	/*
+	 * Stops the threads of the portfolio
+	 */
+	void close() {
+		this.executor.shutdownNow();
+	}
+}
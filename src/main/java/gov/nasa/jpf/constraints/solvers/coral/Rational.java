@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/*
+ * Exact rational number, always kept in lowest terms with a positive
+ * denominator.
+ */
+final class Rational implements Comparable<Rational> {
+
+	static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+	static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+	private final BigInteger num;
+	private final BigInteger den;
+
+	private Rational(BigInteger num, BigInteger den) {
+		this.num = num;
+		this.den = den;
+	}
+
+	static Rational of(BigInteger num, BigInteger den) {
+		if(den.signum() == 0)
+			throw new ArithmeticException("Division by zero");
+		if(den.signum() < 0) {
+			num = num.negate();
+			den = den.negate();
+		}
+		BigInteger gcd = num.gcd(den);
+		if(!gcd.equals(BigInteger.ONE)) {
+			num = num.divide(gcd);
+			den = den.divide(gcd);
+		}
+		return new Rational(num, den);
+	}
+
+	static Rational of(long value) {
+		return new Rational(BigInteger.valueOf(value), BigInteger.ONE);
+	}
+
+	static Rational of(BigDecimal value) {
+		if(value.scale() <= 0)
+			return new Rational(value.toBigIntegerExact(), BigInteger.ONE);
+		return of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+	}
+
+	/*
+	 * The exact value of n, or null if it has none (NaN, infinities) or n is
+	 * of an unknown class
+	 */
+	static Rational of(Number n) {
+		if(n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte)
+			return of(n.longValue());
+		if(n instanceof Double || n instanceof Float) {
+			double d = n.doubleValue();
+			if(Double.isNaN(d) || Double.isInfinite(d))
+				return null;
+			return of(new BigDecimal(d));
+		}
+		if(n instanceof BigInteger)
+			return new Rational((BigInteger)n, BigInteger.ONE);
+		if(n instanceof BigDecimal)
+			return of((BigDecimal)n);
+		return null;
+	}
+
+	Rational add(Rational o) {
+		if(this.den.equals(o.den))
+			return of(this.num.add(o.num), this.den);
+		return of(this.num.multiply(o.den).add(o.num.multiply(this.den)), this.den.multiply(o.den));
+	}
+
+	Rational subtract(Rational o) {
+		return add(o.negate());
+	}
+
+	Rational multiply(Rational o) {
+		return of(this.num.multiply(o.num), this.den.multiply(o.den));
+	}
+
+	Rational divide(Rational o) {
+		return of(this.num.multiply(o.den), this.den.multiply(o.num));
+	}
+
+	Rational negate() {
+		return new Rational(this.num.negate(), this.den);
+	}
+
+	Rational abs() {
+		return (signum() < 0) ? negate() : this;
+	}
+
+	int signum() {
+		return this.num.signum();
+	}
+
+	boolean isInteger() {
+		return this.den.equals(BigInteger.ONE);
+	}
+
+	BigInteger floor() {
+		BigInteger[] qr = this.num.divideAndRemainder(this.den);
+		return (qr[1].signum() < 0) ? qr[0].subtract(BigInteger.ONE) : qr[0];
+	}
+
+	BigInteger ceil() {
+		BigInteger[] qr = this.num.divideAndRemainder(this.den);
+		return (qr[1].signum() > 0) ? qr[0].add(BigInteger.ONE) : qr[0];
+	}
+
+	double doubleValue() {
+		if(isInteger())
+			return this.num.doubleValue();
+		return new BigDecimal(this.num).divide(new BigDecimal(this.den), MathContext.DECIMAL64).doubleValue();
+	}
+
+	@Override
+	public int compareTo(Rational o) {
+		return this.num.multiply(o.den).compareTo(o.num.multiply(this.den));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(!(o instanceof Rational))
+			return false;
+		Rational r = (Rational)o;
+		return this.num.equals(r.num) && this.den.equals(r.den);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.num.hashCode() + this.den.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return isInteger() ? this.num.toString() : this.num + "/" + this.den;
+	}
+}
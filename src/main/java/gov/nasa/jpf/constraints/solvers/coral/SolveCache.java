@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+import gov.nasa.jpf.constraints.api.Variable;
+
+/*
+ * Bounded LRU cache of definite answers (SAT with model, UNSAT) keyed by the
+ * canonical form of the solved formula. Models are stored by canonical
+ * variable index, so a hit on an alpha-renamed formula gets the model for its
+ * own variables.
+ */
+public class SolveCache {
+
+	private static class Entry {
+		final Result result;
+		final Object[] model;
+
+		Entry(Result result, Object[] model) {
+			this.result = result;
+			this.model = model;
+		}
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<ExpressionKey, Entry> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	SolveCache(final int capacity) {
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<ExpressionKey, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ExpressionKey, Entry> eldest) {
+				if(size() > capacity) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/*
+	 * Returns null on a miss. On a SAT hit, the model is written to result.
+	 */
+	SolveResult lookup(ExpressionKey key, Valuation result) {
+		Entry e;
+		synchronized(this.entries) {
+			e = this.entries.get(key);
+		}
+		if(e == null) {
+			this.misses.incrementAndGet();
+			return null;
+		}
+		this.hits.incrementAndGet();
+		if(e.result == Result.SAT && result != null) {
+			List<Variable<?>> vars = key.getVariables();
+			for(int i = 0; i < e.model.length; i++) {
+				if(e.model[i] != null)
+					ValuationUtil.setValue(result, vars.get(i), e.model[i]);
+			}
+		}
+		return new SolveResult(e.result, (e.result == Result.SAT) ? result : null);
+	}
+
+	/*
+	 * Only definite answers are stored; DONT_KNOW may be different next time.
+	 */
+	void store(ExpressionKey key, SolveResult res) {
+		Object[] model = null;
+		if(res.getResult() == Result.SAT) {
+			if(res.getValuation() == null)
+				return;
+			Map<Variable<?>, Object> values = new HashMap<>();
+			for(ValuationEntry<?> ve : res.getValuation())
+				values.put(ve.getVariable(), ve.getValue());
+			List<Variable<?>> vars = key.getVariables();
+			model = new Object[vars.size()];
+			for(int i = 0; i < model.length; i++)
+				model[i] = values.get(vars.get(i));
+		} else if(res.getResult() != Result.UNSAT) {
+			return;
+		}
+		synchronized(this.entries) {
+			this.entries.put(key, new Entry(res.getResult(), model));
+		}
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public int size() {
+		synchronized(this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	public void clear() {
+		synchronized(this.entries) {
+			this.entries.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SolveCache[size=" + size() + "/" + this.capacity +
+			   ", hits=" + getHits() +
+			   ", misses=" + getMisses() +
+			   ", evictions=" + getEvictions() + "]";
+	}
+}
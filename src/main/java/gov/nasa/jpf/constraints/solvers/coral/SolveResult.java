@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Valuation;
+
+/*
+ * The outcome of a single solve: the result, if it is SAT, the model, and why
+ * the solver arrived at it.
+ */
+public final class SolveResult {
+
+	public enum Reason {
+		SOLVED,     //Coral returned SAT or UNSAT
+		INCOMPLETE, //the search ended without finding a model
+		TIMEOUT,    //the deadline of the solve expired
+		CANCELLED,  //the solving thread was interrupted
+		ERROR       //translation or Coral failed
+	}
+
+	private final Result result;
+	private final Valuation valuation;
+	private final Reason reason;
+
+	public SolveResult(Result result, Valuation valuation, Reason reason) {
+		this.result = result;
+		this.valuation = valuation;
+		this.reason = reason;
+	}
+
+	public SolveResult(Result result, Valuation valuation) {
+		this(result, valuation, (result == Result.DONT_KNOW) ? Reason.INCOMPLETE : Reason.SOLVED);
+	}
+
+	public Result getResult() {
+		return this.result;
+	}
+
+	public Valuation getValuation() {
+		return this.valuation;
+	}
+
+	public Reason getReason() {
+		return this.reason;
+	}
+
+	@Override
+	public String toString() {
+		if(this.result == Result.DONT_KNOW)
+			return this.result + " (" + this.reason + ")";
+		return (this.valuation == null) ? this.result.toString() : this.result + " " + this.valuation;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+/*
+ * Receives measurements of the solver. Implementations are called from every
+ * thread that solves, so they have to be thread-safe and cheap.
+ */
+public interface SolverMetrics {
+
+	enum Phase {
+		//jConstraints expression to Coral PC
+		TRANSLATION,
+		//Coral's search
+		SEARCH,
+		//Coral's solution to a Valuation
+		EXTRACTION,
+		//whole query, including cache and model pool lookups
+		TOTAL
+	}
+
+	void recordLatency(Phase phase, long nanos);
+
+	/*
+	 * Size of a formula handed to Coral in expression nodes and free variables
+	 */
+	void recordFormula(int nodes, int variables);
+
+	/*
+	 * The iteration budget of a search
+	 */
+	void recordIterations(int iterations);
+
+	/*
+	 * Called once per query with its final answer
+	 */
+	void recordResult(SolveResult result);
+
+	/*
+	 * Called once per query that ended with an exception instead of an answer
+	 */
+	void recordFailure();
+
+	SolverMetrics NONE = new SolverMetrics() {
+		@Override
+		public void recordLatency(Phase phase, long nanos) { }
+
+		@Override
+		public void recordFormula(int nodes, int variables) { }
+
+		@Override
+		public void recordIterations(int iterations) { }
+
+		@Override
+		public void recordResult(SolveResult result) { }
+
+		@Override
+		public void recordFailure() { }
+	};
+}
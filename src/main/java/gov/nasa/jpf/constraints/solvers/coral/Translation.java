@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import symlib.SymLiteral;
+import coral.PC;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.solvers.coral.CoralRuntime.SymbolSpace;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+/*
+ * A formula together with the way it is brought into Coral's representation.
+ * translate() is always called while holding the Coral lock.
+ */
+abstract class Translation {
+
+	private List<Expression<Boolean>> domains = Collections.emptyList();
+
+	abstract Expression<Boolean> getFormula();
+
+	/*
+	 * The symbol space the literals of this translation live in, or null if
+	 * every translation starts from scratch.
+	 */
+	SymbolSpace getSymbolSpace() {
+		return null;
+	}
+
+	/*
+	 * A model of a closely related formula the search may start from, or null
+	 */
+	Valuation getHint() {
+		return null;
+	}
+
+	/*
+	 * Constraints implied by the formula that narrow the domains of its
+	 * variables. They are translated along with the formula.
+	 */
+	List<Expression<Boolean>> getDomains() {
+		return this.domains;
+	}
+
+	void setDomains(List<Expression<Boolean>> domains) {
+		this.domains = domains;
+	}
+
+	/*
+	 * The formula conjoined with its domains
+	 */
+	Expression<Boolean> getConstrainedFormula() {
+		return this.domains.isEmpty() ? getFormula() : 
+		    ExpressionUtil.and(getFormula(), ExpressionUtil.and(this.domains));
+	}
+
+	abstract PC translate();
+
+	/*
+	 * The literals of the variables of the last translated PC
+	 */
+	abstract Map<Variable<?>, SymLiteral> getVariables();
+
+	static Translation of(final Expression<Boolean> f) {
+		return new Translation() {
+			private CoralExpressionGenerator gen;
+
+			@Override
+			Expression<Boolean> getFormula() {
+				return f;
+			}
+
+			@Override
+			PC translate() {
+				this.gen = new CoralExpressionGenerator();
+				return this.gen.generateAssertion(ExpressionSimplifier.simplify(getConstrainedFormula()));
+			}
+
+			@Override
+			Map<Variable<?>, SymLiteral> getVariables() {
+				return this.gen.getVariables();
+			}
+		};
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.BoolType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.FloatType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt64Type;
+import gov.nasa.jpf.constraints.types.Type;
+
+final class ValuationUtil {
+
+	private ValuationUtil() { }
+
+	static void copy(Valuation from, Valuation to) {
+		for(ValuationEntry<?> e : from)
+			copyEntry(e, to);
+	}
+
+	private static <E> void copyEntry(ValuationEntry<E> e, Valuation to) {
+		to.setValue(e.getVariable(), e.getValue());
+	}
+
+	/*
+	 * True if val assigns all of vars and f evaluates to true under val
+	 */
+	static boolean isModel(Expression<Boolean> f, Collection<Variable<?>> vars, Valuation val) {
+		Set<Variable<?>> assigned = new HashSet<>();
+		for(ValuationEntry<?> e : val)
+			assigned.add(e.getVariable());
+		if(!assigned.containsAll(vars))
+			return false;
+		try {
+			return f.evaluate(val);
+		} catch(RuntimeException e) { //e.g., division by zero
+			return false;
+		}
+	}
+
+	static void copy(Valuation from, Collection<Variable<?>> vars, Valuation to) {
+		for(Variable<?> v : vars)
+			setValue(to, v, from.getValue(v));
+	}
+
+	@SuppressWarnings("unchecked")
+	static void setValue(Valuation val, Variable<?> v, Object value) {
+		val.setValue((Variable<Object>)v, value);
+	}
+
+	/*
+	 * Assigns v the zero of its type
+	 */
+	static void setDefault(Valuation val, Variable<?> v) {
+		Type<?> type = v.getType();
+		Object value;
+		if(type instanceof SInt64Type)
+			value = 0L;
+		else if(type instanceof FloatType)
+			value = 0f;
+		else if(type instanceof DoubleType)
+			value = 0.0;
+		else if(type instanceof BoolType)
+			value = false;
+		else
+			value = 0;
+		setValue(val, v, value);
+	}
+}
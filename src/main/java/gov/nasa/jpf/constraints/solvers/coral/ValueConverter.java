@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import symlib.SymNumber;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.DoubleType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.FloatType;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt32Type;
+import gov.nasa.jpf.constraints.types.BuiltinTypes.SInt64Type;
+import gov.nasa.jpf.constraints.types.Type;
+
+/*
+ * Turns the value Coral found for a variable into a value of the variable's
+ * type. Coral may answer with a number of another type than the literal it
+ * was asked for (e.g., an int for a double variable), so the number is
+ * always converted.
+ */
+enum ValueConverter {
+	SINT32 {
+		@Override
+		Object convert(SymNumber value) {
+			return value.evalNumber().intValue();
+		}
+	},
+	SINT64 {
+		@Override
+		Object convert(SymNumber value) {
+			return value.evalNumber().longValue();
+		}
+	},
+	FLOAT {
+		@Override
+		Object convert(SymNumber value) {
+			return value.evalNumber().floatValue();
+		}
+	},
+	DOUBLE {
+		@Override
+		Object convert(SymNumber value) {
+			return value.evalNumber().doubleValue();
+		}
+	};
+
+	abstract Object convert(SymNumber value);
+
+	/*
+	 * Sets v to value in val. Booleans and values of other types still go
+	 * through the parser of the type.
+	 */
+	static void set(Valuation val, Variable<?> v, SymNumber value) {
+		ValueConverter c = of(v.getType());
+		if(c == null)
+			val.setParsedValue(v, value.toString());
+		else
+			ValuationUtil.setValue(val, v, c.convert(value));
+	}
+
+	/*
+	 * The converter for values of type, or null if there is none
+	 */
+	static ValueConverter of(Type<?> type) {
+		if(type instanceof SInt32Type)
+			return SINT32;
+		else if(type instanceof SInt64Type)
+			return SINT64;
+		else if(type instanceof FloatType)
+			return FLOAT;
+		else if(type instanceof DoubleType)
+			return DOUBLE;
+		return null;
+	}
+}
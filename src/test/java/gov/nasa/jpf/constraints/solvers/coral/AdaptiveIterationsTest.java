@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.SolveResult.Reason;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class AdaptiveIterationsTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+
+	private Expression<Boolean> bound() {
+		return new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 3.0));
+	}
+
+	private Expression<Boolean> trig() {
+		return new NumericBooleanExpression(
+				new NumericCompound<Double>(new FunctionExpression<>(MathFunctions.SIN, x), NumericOperator.MUL, y),
+				NumericComparator.EQ,
+				new FunctionExpression<>(MathFunctions.COS, y));
+	}
+
+	@Test
+	public void features() {
+		FormulaFeatures f = FormulaFeatures.of(trig());
+		Assert.assertEquals(2, f.getVariables());
+		Assert.assertEquals(1, f.getNonlinear());
+		Assert.assertEquals(2, f.getTranscendental());
+		Assert.assertEquals(4, f.getDepth());
+	}
+
+	@Test
+	public void budgetFollowsFeaturesAndHistory() {
+		AdaptiveBudget budget = new AdaptiveBudget(50, 10000);
+		FormulaFeatures easy = FormulaFeatures.of(bound());
+		FormulaFeatures hard = FormulaFeatures.of(trig());
+		int easyIt = budget.iterationsFor(easy);
+		int hardIt = budget.iterationsFor(hard);
+		Assert.assertTrue(easyIt < hardIt);
+
+		budget.record(hard, new SolveResult(Result.DONT_KNOW, null, Reason.INCOMPLETE));
+		Assert.assertEquals(Math.min(10000, 2 * hardIt), budget.iterationsFor(hard));
+		Assert.assertEquals(easyIt, budget.iterationsFor(easy));
+
+		for(int i = 0; i < 100; i++)
+			budget.record(easy, new SolveResult(Result.SAT, null));
+		Assert.assertEquals(50, budget.iterationsFor(easy));
+	}
+
+	@Test
+	public void solvesAdaptively() {
+		CoralSolver solver = new CoralSolverBuilder()
+			.adaptiveIterations(true)
+			.linearPresolve(false)
+			.buildCoralSolver();
+		TstUtil.runTest(solver, bound(), Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class AsyncTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+
+	private Expression<Boolean> greater(double c) {
+		return new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, c));
+	}
+
+	@Test
+	public void manyQueriesInFlight() throws Exception {
+		try(CoralSolver solver = new CoralSolverBuilder().asyncThreads(2).buildCoralSolver()) {
+			List<CompletableFuture<SolveResult>> futures = new ArrayList<>();
+			for(int i = 0; i < 50; i++)
+				futures.add(solver.solveAsync(greater(i)));
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+			for(int i = 0; i < futures.size(); i++) {
+				SolveResult res = futures.get(i).get();
+				Assert.assertEquals(Result.SAT, res.getResult());
+				Assert.assertTrue(greater(i).evaluate(res.getValuation()));
+			}
+		}
+	}
+
+	@Test
+	public void closedSolverRejectsQueries() throws Exception {
+		CoralSolver solver = new CoralSolverBuilder().asyncThreads(1).buildCoralSolver();
+		solver.close();
+		try {
+			solver.solveAsync(greater(1.0)).get();
+			Assert.fail("Closed solver accepted a query");
+		} catch(ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test
+	public void cancelledQueriesStop() throws Exception {
+		CoralSolver solver = new CoralSolverBuilder()
+			.asyncThreads(1)
+			.iterations(100000)
+			.timeout(2000)
+			.intervalPresolve(false)
+			.buildCoralSolver();
+		//sin(x) == cos(x) + 1.5 has no solution, so the search takes its time
+		Expression<Boolean> hard = new NumericBooleanExpression(
+				new FunctionExpression<>(MathFunctions.SIN, x),
+				NumericComparator.EQ,
+				new NumericCompound<Double>(new FunctionExpression<>(MathFunctions.COS, x),
+						NumericOperator.PLUS, new Constant<Double>(BuiltinTypes.DOUBLE, 1.5)));
+		CompletableFuture<SolveResult> running = solver.solveAsync(hard);
+		CompletableFuture<SolveResult> queued = solver.solveAsync(hard);
+		Assert.assertTrue(queued.cancel(true));
+		Assert.assertTrue(running.cancel(true));
+		Assert.assertTrue(running.isCancelled() && queued.isCancelled());
+		try {
+			running.get();
+			Assert.fail("Cancelled query returned a result");
+		} catch(CancellationException e) {
+			//expected
+		}
+		//the executor is free again once the search of the cancelled query ends
+		Assert.assertEquals(Result.SAT, solver.solveAsync(greater(1.0)).get().getResult());
+		solver.close();
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.SolveResult.Reason;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class BatchTest {
+
+	private static Expression<Boolean> greater(Variable<Double> v, double c) {
+		return new NumericBooleanExpression(v, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, c));
+	}
+
+	@Test
+	public void resultsInOrderAndDeduplicated() {
+		JmxSolverMetrics metrics = new JmxSolverMetrics();
+		CoralSolver solver = new CoralSolverBuilder()
+			.metrics(metrics)
+			.linearPresolve(false)
+			.asyncThreads(4)
+			.buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		Variable<BigDecimal> d = new Variable<BigDecimal>(BuiltinTypes.DECIMAL, "d");
+
+		List<Expression<Boolean>> batch = new ArrayList<>();
+		batch.add(greater(x, 3.0));
+		//sin(x) == 7.2
+		batch.add(new NumericBooleanExpression(
+				new FunctionExpression<>(MathFunctions.SIN, x),
+				NumericComparator.EQ, new Constant<Double>(BuiltinTypes.DOUBLE, 7.2)));
+		batch.add(greater(y, 3.0));
+		batch.add(ExpressionUtil.and(greater(x, 3.0), greater(y, 5.0)));
+		batch.add(greater(x, 3.0));
+		batch.add(new NumericBooleanExpression(
+				d, NumericComparator.GT, new Constant<BigDecimal>(BuiltinTypes.DECIMAL, BigDecimal.ONE)));
+
+		List<SolveResult> results = solver.solveAll(batch);
+		Assert.assertEquals(batch.size(), results.size());
+		Assert.assertEquals(Result.UNSAT, results.get(1).getResult());
+		Assert.assertEquals(Result.DONT_KNOW, results.get(5).getResult());
+		Assert.assertEquals(Reason.ERROR, results.get(5).getReason());
+		for(int i : new int[] {0, 2, 3, 4}) {
+			Assert.assertEquals(Result.SAT, results.get(i).getResult());
+			Assert.assertTrue(batch.get(i).evaluate(results.get(i).getValuation()));
+		}
+		//x > 3 and its renaming y > 3 are only solved once
+		Assert.assertEquals(2, metrics.getSatCount());
+	}
+}
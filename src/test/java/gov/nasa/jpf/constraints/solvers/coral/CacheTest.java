@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class CacheTest {
+
+	private Expression<Boolean> sinAndBound(Variable<Double> x, Variable<Double> y) {
+		return ExpressionUtil.and(
+				new NumericBooleanExpression(
+						new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericComparator.EQ,
+						y),
+				new NumericBooleanExpression(
+						y, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 0.5)));
+	}
+
+	@Test
+	public void alphaRenamedHit() {
+		CoralSolver solver = new CoralSolverBuilder().cacheSize(16).buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		Variable<Double> a = new Variable<Double>(BuiltinTypes.DOUBLE, "a");
+		Variable<Double> b = new Variable<Double>(BuiltinTypes.DOUBLE, "b");
+
+		TstUtil.runTest(solver, sinAndBound(x, y), Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Assert.assertEquals(1, solver.getCache().getMisses());
+
+		Valuation val = TstUtil.runTest(solver, sinAndBound(a, b), Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Assert.assertEquals(1, solver.getCache().getHits());
+		Assert.assertNotNull(val.getValue(a));
+		Assert.assertNotNull(val.getValue(b));
+	}
+
+	@Test
+	public void canonicalKeys() {
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		Expression<Boolean> c1 = new NumericBooleanExpression(x, NumericComparator.LT, y);
+		Expression<Boolean> c2 = new NumericBooleanExpression(y, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 1.0));
+
+		Assert.assertEquals(ExpressionKey.of(ExpressionUtil.and(c1, c2)), ExpressionKey.of(ExpressionUtil.and(c2, c1)));
+		Assert.assertEquals(ExpressionKey.of(c1), ExpressionKey.of(new NumericBooleanExpression(y, NumericComparator.LT, x)));
+		Assert.assertFalse(ExpressionKey.of(c1).equals(ExpressionKey.of(new NumericBooleanExpression(x, NumericComparator.LT, x))));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		CoralSolver solver = new CoralSolverBuilder().cacheSize(1).buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		for(double c = 1.0; c <= 3.0; c++)
+			solver.solve(new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, c)));
+		Assert.assertEquals(1, solver.getCache().size());
+		Assert.assertEquals(2, solver.getCache().getEvictions());
+	}
+
+	@Test
+	public void reusePooledModel() {
+		CoralSolver solver = new CoralSolverBuilder().modelPoolSize(4).buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Expression<Boolean> gt5 = new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 5.0));
+		Expression<Boolean> gt4 = new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 4.0));
+
+		TstUtil.runTest(solver, gt5, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Valuation val = TstUtil.runTest(solver, gt4, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Assert.assertEquals(1, solver.getModelPool().getHits());
+		Assert.assertTrue(gt4.evaluate(val));
+	}
+}
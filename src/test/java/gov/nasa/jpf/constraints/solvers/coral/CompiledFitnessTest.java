@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class CompiledFitnessTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Integer> i = new Variable<Integer>(BuiltinTypes.SINT32, "i");
+
+	private static Constant<Double> c(double v) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, v);
+	}
+
+	private static Constant<Integer> c(int v) {
+		return new Constant<Integer>(BuiltinTypes.SINT32, v);
+	}
+
+	@Test
+	public void distanceIsZeroOnModels() {
+		//sin(x) > 0.5 && !(i / 2 == 3)
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x), NumericComparator.GT, c(0.5)),
+				new Negation(new NumericBooleanExpression(
+						new NumericCompound<Integer>(i, NumericOperator.DIV, c(2)), NumericComparator.EQ, c(3))));
+		CompiledFitness fit = CompiledFitness.compile(expr);
+		Assert.assertEquals(2, fit.getDimension());
+		Assert.assertEquals(x, fit.getVariables().get(0));
+		Assert.assertTrue(fit.isIntegral(1));
+
+		double[] model = { 1.0, 5 };
+		Assert.assertEquals(0.0, fit.evaluate(model), 0.0);
+		Valuation val = new Valuation();
+		fit.toValuation(model, val);
+		Assert.assertTrue(expr.evaluate(val));
+
+		//i / 2 == 3 for i = 7, and sin(0) is 0.5 + K below the bound
+		Assert.assertEquals(0.5 + 2 * CompiledFitness.K, fit.evaluate(new double[] { 0.0, 7 }), 1e-9);
+	}
+
+	@Test
+	public void disjunctionTakesTheCloserSide() {
+		//x == 2.0 || x == 10.0
+		Expression<Boolean> expr = ExpressionUtil.or(
+				new NumericBooleanExpression(x, NumericComparator.EQ, c(2.0)),
+				new NumericBooleanExpression(x, NumericComparator.EQ, c(10.0)));
+		CompiledFitness fit = CompiledFitness.compile(expr);
+		Assert.assertEquals(1.0, fit.evaluate(new double[] { 9.0 }), 0.0);
+		Assert.assertEquals(CompiledFitness.PENALTY, fit.evaluate(new double[] { Double.NaN }), 0.0);
+	}
+
+	@Test
+	public void sameShapeSharesTemplate() {
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		FitnessCache cache = new FitnessCache(8);
+		//x > 1.0 && sin(x) < 0.25 and y > 3.0 && sin(y) < 0.5
+		CompiledFitness fx = cache.get(ExpressionUtil.and(
+				new NumericBooleanExpression(x, NumericComparator.GT, c(1.0)),
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x), NumericComparator.LT, c(0.25))));
+		CompiledFitness fy = cache.get(ExpressionUtil.and(
+				new NumericBooleanExpression(y, NumericComparator.GT, c(3.0)),
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, y), NumericComparator.LT, c(0.5))));
+		Assert.assertEquals(1, cache.getMisses());
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(y, fy.getVariables().get(0));
+		//x = 2.0 fails only sin(x) < 0.25, y = 3.5 is a model
+		Assert.assertEquals(Math.sin(2.0) - 0.25 + CompiledFitness.K, fx.evaluate(new double[] { 2.0 }), 1e-9);
+		Assert.assertEquals(0.0, fy.evaluate(new double[] { 3.5 }), 0.0);
+		Assert.assertTrue(fx.evaluate(new double[] { 3.5 }) > 0);
+
+		//a different comparator is a different shape
+		cache.get(new NumericBooleanExpression(x, NumericComparator.GE, c(1.0)));
+		Assert.assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void batchMatchesSinglePoints() {
+		//sin(x) * x > 0.5 || !(i % 3 == 1) && i / 2 < -2
+		Expression<Boolean> expr = ExpressionUtil.or(
+				new NumericBooleanExpression(new NumericCompound<Double>(new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericOperator.MUL, x), NumericComparator.GT, c(0.5)),
+				ExpressionUtil.and(
+						new Negation(new NumericBooleanExpression(
+								new NumericCompound<Integer>(i, NumericOperator.REM, c(3)), NumericComparator.EQ, c(1))),
+						new NumericBooleanExpression(
+								new NumericCompound<Integer>(i, NumericOperator.DIV, c(2)), NumericComparator.LT, c(-2))));
+		CompiledFitness fit = CompiledFitness.compile(expr);
+		int n = 100;
+		double[][] xs = new double[2][n];
+		for(int k = 0; k < n; k++) {
+			xs[0][k] = (k - 50) / 10.0;
+			xs[1][k] = k - 50;
+		}
+		double[][] work = new double[fit.getSlots()][n];
+		double[] out = new double[n];
+		fit.evaluate(xs, 0, n / 2, work, out);
+		fit.evaluate(xs, n / 2, n, work, out);
+		for(int k = 0; k < n; k++)
+			Assert.assertEquals(fit.evaluate(new double[] { xs[0][k], xs[1][k] }), out[k], 0.0);
+	}
+}
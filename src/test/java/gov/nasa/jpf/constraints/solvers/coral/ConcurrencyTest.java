@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import coral.solvers.SolverKind;
+
+
+public class ConcurrencyTest {
+
+	private Expression<Boolean> sinEq(double c) {
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		return new NumericBooleanExpression(
+				new FunctionExpression<>(MathFunctions.SIN, x),
+				NumericComparator.EQ,
+				new Constant<Double>(BuiltinTypes.DOUBLE, c));
+	}
+
+	/*
+	 * The Coral searches take turns, this checks that the settings of one
+	 * solver never leak into the searches of another
+	 */
+	@Test
+	public void differentlyConfiguredSolversInParallel() throws Exception {
+		final CoralSolver pso = new CoralSolverBuilder().seed(42).solverKind(SolverKind.PSO_OPT4J).buildCoralSolver();
+		final CoralSolver avm = new CoralSolverBuilder().seed(4711).solverKind(SolverKind.AVM).iterations(50000).buildCoralSolver();
+
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Result>> results = new ArrayList<>();
+			for(int i = 0; i < 8; i++) {
+				final CoralSolver solver = (i % 2 == 0) ? pso : avm;
+				final Expression<Boolean> expr = sinEq(0.1 * (i + 1));
+				results.add(exec.submit(new Callable<Result>() {
+					@Override
+					public Result call() {
+						return solver.solve(expr, new Valuation());
+					}
+				}));
+			}
+			for(Future<Result> res : results)
+				Assert.assertEquals(Result.SAT, res.get());
+		} finally {
+			exec.shutdownNow();
+			pso.close();
+			avm.close();
+		}
+		//the snapshots are not affected by each other
+		Assert.assertEquals(SolverKind.PSO_OPT4J, pso.getSettings().getSolverKind());
+		Assert.assertEquals(4711L, avm.getSettings().getSeed());
+	}
+
+	@Test
+	public void nativeSwarmDoesNotWaitForCoral() throws Exception {
+		final CoralSolver solver = new CoralSolverBuilder().nativePso(true).buildCoralSolver();
+		final Expression<Boolean> expr = new NumericBooleanExpression(
+				new FunctionExpression<>(MathFunctions.SIN, new Variable<Double>(BuiltinTypes.DOUBLE, "x")),
+				NumericComparator.GT,
+				new Constant<Double>(BuiltinTypes.DOUBLE, 0.5));
+		final ExecutorService exec = Executors.newSingleThreadExecutor();
+		try {
+			//holds the Coral lock while the other thread solves
+			Result res = CoralRuntime.exclusive(solver.getSettings(), new Callable<Result>() {
+				@Override
+				public Result call() throws Exception {
+					return exec.submit(new Callable<Result>() {
+						@Override
+						public Result call() {
+							return solver.solve(expr, new Valuation());
+						}
+					}).get(30, TimeUnit.SECONDS);
+				}
+			});
+			Assert.assertEquals(Result.SAT, res);
+		} finally {
+			exec.shutdownNow();
+			solver.close();
+		}
+	}
+}
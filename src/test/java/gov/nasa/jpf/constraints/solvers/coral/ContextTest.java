@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.SolverContext;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.ValuationEntry;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class ContextTest {
+
+	private static Set<Variable<?>> assigned(Valuation val) {
+		Set<Variable<?>> vars = new HashSet<>();
+		for(ValuationEntry<?> e : val)
+			vars.add(e.getVariable());
+		return vars;
+	}
+
+	@Test
+	public void pushAddSolvePop() {
+		Properties conf = new Properties();
+		//the formulas are linear, but this is about Coral's translation
+		conf.setProperty(CoralConfig.LINEAR_PRESOLVE.getPropStr(), "false");
+		CoralSolver solver = TstUtil.createCoralSolver(conf);
+		SolverContext ctx = solver.createContext();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+
+		ctx.add(new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 1.0)));
+		Assert.assertEquals(Result.SAT, ctx.solve(new Valuation()));
+
+		for(int i = 0; i < 5; i++) {
+			ctx.push();
+			ctx.add(new NumericBooleanExpression(y, NumericComparator.LT, x));
+			Valuation val = new Valuation();
+			Assert.assertEquals(Result.SAT, ctx.solve(val));
+			Assert.assertTrue(assigned(val).contains(y));
+
+			//another solve in between invalidates the cached translation of the context
+			if(i % 2 == 0)
+				solver.solve(new NumericBooleanExpression(y, NumericComparator.GT, x));
+
+			ctx.pop();
+			val = new Valuation();
+			Assert.assertEquals(Result.SAT, ctx.solve(val));
+			Assert.assertFalse(assigned(val).contains(y));
+		}
+	}
+
+	@Test
+	public void readdAfterPop() {
+		Properties conf = new Properties();
+		conf.setProperty(CoralConfig.LINEAR_PRESOLVE.getPropStr(), "false");
+		CoralSolver solver = TstUtil.createCoralSolver(conf);
+		SolverContext ctx = solver.createContext();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		ctx.add(new NumericBooleanExpression(x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 1.0)));
+		//y = 0 is not a model, so y must get a literal again after the pop
+		Expression<Boolean> yGreater = new NumericBooleanExpression(y, NumericComparator.GT, x);
+
+		for(int i = 0; i < 3; i++) {
+			ctx.push();
+			ctx.add(yGreater);
+			Valuation val = new Valuation();
+			Assert.assertEquals(Result.SAT, ctx.solve(val));
+			Assert.assertTrue(yGreater.evaluate(val));
+			ctx.pop();
+		}
+	}
+}
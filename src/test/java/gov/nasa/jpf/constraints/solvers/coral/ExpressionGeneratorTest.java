@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Properties;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class ExpressionGeneratorTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+
+	//a fresh sin(x) * cos(y) object every time
+	private Expression<Double> term() {
+		return new NumericCompound<Double>(
+				new FunctionExpression<>(MathFunctions.SIN, x), NumericOperator.MUL,
+				new FunctionExpression<>(MathFunctions.COS, y));
+	}
+
+	private Expression<Boolean> cmp(NumericComparator cmp, double c) {
+		return new NumericBooleanExpression(term(), cmp, new Constant<Double>(BuiltinTypes.DOUBLE, c));
+	}
+
+	@Test
+	public void equalSubtermsShareNodes() {
+		CoralExpressionGenerator gen = new CoralExpressionGenerator();
+		Assert.assertSame(gen.translate(cmp(NumericComparator.GT, 0.5)), gen.translate(cmp(NumericComparator.GT, 0.5)));
+		Assert.assertNotSame(gen.translate(cmp(NumericComparator.GT, 0.5)), gen.translate(cmp(NumericComparator.LT, 0.5)));
+		Assert.assertEquals(2, gen.getVariables().size());
+	}
+
+	@Test
+	public void sharedSubtermsSolve() {
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(NumericComparator.GT, 0.5),
+				cmp(NumericComparator.LT, 0.7));
+		TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Properties;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.Negation;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class ExpressionSimplifierTest {
+
+	private final Variable<Integer> i = new Variable<Integer>(BuiltinTypes.SINT32, "i");
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+
+	private static Constant<Integer> c(int v) {
+		return new Constant<Integer>(BuiltinTypes.SINT32, v);
+	}
+
+	private static Constant<Double> c(double v) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, v);
+	}
+
+	@Test
+	public void identitiesAreRemoved() {
+		//(i * 1) + (2 * 3) > i - 0
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<Integer>(new NumericCompound<Integer>(i, NumericOperator.MUL, c(1)),
+						NumericOperator.PLUS, new NumericCompound<Integer>(c(2), NumericOperator.MUL, c(3))),
+				NumericComparator.GT, new NumericCompound<Integer>(i, NumericOperator.MINUS, c(0)));
+		Expression<Boolean> expected = new NumericBooleanExpression(
+				new NumericCompound<Integer>(i, NumericOperator.PLUS, c(6)), NumericComparator.GT, i);
+		Assert.assertEquals(expected, ExpressionSimplifier.simplify(expr));
+	}
+
+	@Test
+	public void realZerosAreKept() {
+		//x + 0.0 is -0.0 + 0.0 = 0.0 for x = -0.0
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<Double>(x, NumericOperator.PLUS, c(0.0)), NumericComparator.LT, c(1.0));
+		Assert.assertEquals(expr, ExpressionSimplifier.simplify(expr));
+		//!(x < 1.0) is not x >= 1.0 for x = NaN
+		Expression<Boolean> neg = new Negation(new NumericBooleanExpression(x, NumericComparator.LT, c(1.0)));
+		Assert.assertEquals(neg, ExpressionSimplifier.simplify(neg));
+	}
+
+	@Test
+	public void constantConjunctDecidesQuery() {
+		//sin(x) > 0.5 && 2 > 3
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x), NumericComparator.GT, c(0.5)),
+				new NumericBooleanExpression(c(2), NumericComparator.GT, c(3)));
+		Assert.assertEquals(Result.UNSAT, ExpressionSimplifier.decide(expr, null).getResult());
+
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+
+	@Test
+	public void tautologyGetsDefaultModel() {
+		//i * 0 == 0 || x > 1.0
+		Expression<Boolean> expr = ExpressionUtil.or(
+				new NumericBooleanExpression(new NumericCompound<Integer>(i, NumericOperator.MUL, c(0)), NumericComparator.EQ, c(0)),
+				new NumericBooleanExpression(x, NumericComparator.GT, c(1.0)));
+		Valuation val = new Valuation();
+		Assert.assertEquals(Result.SAT, ExpressionSimplifier.decide(expr, val).getResult());
+		Assert.assertTrue(val.containsValueFor(i) && val.containsValueFor(x));
+		Assert.assertTrue(expr.evaluate(val));
+	}
+
+	@Test
+	public void rejectedDefaultsLeaveResultAlone() {
+		//(i / i) * 0 == 0 simplifies to true, but divides by zero for the default i = 0
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<Integer>(new NumericCompound<Integer>(i, NumericOperator.DIV, i),
+						NumericOperator.MUL, c(0)),
+				NumericComparator.EQ, c(0));
+		Valuation val = new Valuation();
+		Assert.assertNull(ExpressionSimplifier.decide(expr, val));
+		Assert.assertFalse(val.containsValueFor(i));
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Map;
+import java.util.Properties;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class IntervalPropagatorTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+
+	private static Constant<Double> c(double v) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, v);
+	}
+
+	@Test
+	public void intervalArithmetic() {
+		Interval i = Interval.of(-1, 2);
+		Assert.assertTrue(i.multiply(i).contains(-2));
+		Assert.assertTrue(i.multiply(i).contains(4));
+		Assert.assertTrue(i.divide(i).isEntire());
+		Assert.assertTrue(Interval.of(0, 0.1).sin().contains(Math.sin(0.1)));
+		Assert.assertEquals(1.0, Interval.of(1, 2).sin().hi, 0.0);
+		Assert.assertTrue(Interval.of(-3, -2).sqrt().isEmpty());
+		Assert.assertTrue(Interval.of(2, 1).isEmpty());
+	}
+
+	@Test
+	public void powOfNegativeZero() {
+		Interval p = Interval.of(-1.0, -1.0);
+		Assert.assertTrue(Interval.of(-0.0, 1.0).pow(p).contains(Math.pow(-0.0, -1.0)));
+		Assert.assertTrue(Interval.of(0.0, 1.0).pow(p).contains(Math.pow(-0.0, -1.0)));
+		Assert.assertTrue(Interval.of(-0.0, 1.0).pow(Interval.of(-2.0, -2.0)).contains(Math.pow(-0.0, -2.0)));
+	}
+
+	@Test
+	public void sqrtAndExpNarrowTheBox() {
+		//sqrt(x) <= 3 && exp(y) >= 1 && y <= x
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SQRT, x), NumericComparator.LE, c(3.0)),
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.EXP, y), NumericComparator.GE, c(1.0)),
+				new NumericBooleanExpression(y, NumericComparator.LE, x));
+		Map<Variable<?>, Interval> box = IntervalPropagator.propagate(expr);
+		Assert.assertNotNull(box);
+		Interval bx = box.get(x), by = box.get(y);
+		Assert.assertTrue(bx.lo >= -1e-9 && bx.hi <= 9 + 1e-9);
+		Assert.assertTrue(by.lo >= -1e-9 && by.hi <= 9 + 1e-9);
+		Assert.assertTrue(bx.contains(0) && bx.contains(9));
+		Assert.assertEquals(4, IntervalPropagator.toConstraints(box).size());
+	}
+
+	@Test
+	public void boundedSumIsUnsat() {
+		//sin(x) + cos(y) > 2.5
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<Double>(new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericOperator.PLUS, new FunctionExpression<>(MathFunctions.COS, y)),
+				NumericComparator.GT, c(2.5));
+		Assert.assertNull(IntervalPropagator.propagate(expr));
+
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+
+	@Test
+	public void productIsProjected() {
+		//x * x == 2 && x > 1
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new NumericCompound<Double>(x, NumericOperator.MUL, x), NumericComparator.EQ, c(2.0)),
+				new NumericBooleanExpression(x, NumericComparator.GT, c(1.0)));
+		Map<Variable<?>, Interval> box = IntervalPropagator.propagate(expr);
+		Assert.assertNotNull(box);
+		Assert.assertTrue(box.get(x).contains(Math.sqrt(2)));
+		Assert.assertTrue(box.get(x).hi <= 2 + 1e-9);
+	}
+
+	@Test
+	public void divisionByZeroIsNotProjected() {
+		//y == 0.0 && x > 1.0 && x / y > 1000.0 holds for x = 2.0, y = 0.0
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(y, NumericComparator.EQ, c(0.0)),
+				new NumericBooleanExpression(x, NumericComparator.GT, c(1.0)),
+				new NumericBooleanExpression(new NumericCompound<Double>(x, NumericOperator.DIV, y), NumericComparator.GT, c(1000.0)));
+		Map<Variable<?>, Interval> box = IntervalPropagator.propagate(expr);
+		Assert.assertNotNull(box);
+		Assert.assertTrue(box.get(x) == null || box.get(x).contains(2.0));
+
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Assert.assertTrue(solver.solve(expr, new Valuation()) != Result.UNSAT);
+		solver.close();
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralConfigurationException;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class IntervalWorkerPoolTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+
+	//x * x == c, which the propagation alone does not narrow
+	private Expression<Boolean> square(double c) {
+		return new NumericBooleanExpression(
+				new NumericCompound<Double>(x, NumericOperator.MUL, x),
+				NumericComparator.EQ, new Constant<Double>(BuiltinTypes.DOUBLE, c));
+	}
+
+	/*
+	 * A stand-in for a wrapped interval solver that gives every query the
+	 * same answer
+	 */
+	private static String worker(String answer, boolean exitAfterAnswer) throws IOException {
+		File script = File.createTempFile("interval-worker", ".sh");
+		script.deleteOnExit();
+		try(Writer w = new FileWriter(script)) {
+			w.write("#!/bin/sh\n" +
+					"while read line; do\n" +
+					"  case \"$line\" in\n" +
+					"    ping) echo pong ;;\n" +
+					"    end) echo \"" + answer + "\"; echo end" + (exitAfterAnswer ? "; exit 0" : "") + " ;;\n" +
+					"  esac\n" +
+					"done\n");
+		}
+		script.setExecutable(true);
+		return script.getAbsolutePath();
+	}
+
+	private static IntervalWorkerPool pool(final String command) {
+		return new IntervalWorkerPool(new IntervalWorkerPool.Factory() {
+			@Override
+			public IntervalWorker create() throws IOException {
+				return new IntervalSolverProcess(command, 5000);
+			}
+		}, 1, 5000);
+	}
+
+	@Test
+	public void workersAreReused() throws IOException {
+		IntervalWorkerPool pool = pool(worker("v0 in [1.0, 2.0]", false));
+		try {
+			for(int i = 0; i < 5; i++) {
+				Map<Variable<?>, Interval> box = pool.narrow(square(2.0), new HashMap<Variable<?>, Interval>());
+				Assert.assertTrue(box.get(x).contains(1.0) && box.get(x).contains(2.0));
+				Assert.assertTrue(box.get(x).hi < 2.1);
+			}
+			Assert.assertEquals(1, pool.getStarted());
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void exitedWorkersAreReplaced() throws IOException {
+		IntervalWorkerPool pool = pool(worker("v0 in [1.0, 2.0]", true));
+		try {
+			for(int i = 0; i < 5; i++) {
+				//a worker that died while idle only costs the narrowing
+				Map<Variable<?>, Interval> box = pool.narrow(square(2.0), new HashMap<Variable<?>, Interval>());
+				Assert.assertNotNull(box);
+				Assert.assertTrue(box.get(x) == null || box.get(x).contains(Math.sqrt(2.0)));
+			}
+			Assert.assertTrue(pool.getStarted() > 1);
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void emptyBoxOfComparisonsIsUnsat() throws IOException {
+		IntervalWorkerPool pool = pool(worker("empty", false));
+		try {
+			Expression<Boolean> expr = new NumericBooleanExpression(
+					x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 1.0));
+			Assert.assertNull(pool.narrow(expr, new HashMap<Variable<?>, Interval>()));
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void emptyBoxWithArithmeticIsNotUnsat() throws IOException {
+		//the worker computes with reals, which says nothing about doubles
+		IntervalWorkerPool pool = pool(worker("empty", false));
+		try {
+			Assert.assertNotNull(pool.narrow(square(2.0), new HashMap<Variable<?>, Interval>()));
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void workerIsCheckedWhenTheSolverIsBuilt() throws IOException {
+		CoralSolver solver = new CoralSolverBuilder()
+			.iterations(1000)
+			.intervalSolver(new IntervalSolver(IntervalSolver.Solver.REALPAVER, worker("empty", false), 1))
+			.buildCoralSolver();
+		try {
+			Assert.assertEquals(1, solver.getIntervalWorkers().getStarted());
+			//x * x == -1.0 has no solution, but the worker cannot prove that for doubles
+			TstUtil.runTest(solver, square(-1.0), Result.DONT_KNOW, TstUtil.PRINT_CORAL_EXPR);
+			Assert.assertEquals(1, solver.getIntervalWorkers().getStarted());
+		} finally {
+			solver.close();
+		}
+	}
+
+	@Test(expected = CoralConfigurationException.class)
+	public void workerWithoutProtocolIsRejected() throws IOException {
+		File script = File.createTempFile("interval-worker", ".sh");
+		script.deleteOnExit();
+		try(Writer w = new FileWriter(script)) {
+			w.write("#!/bin/sh\ncat > /dev/null\n");
+		}
+		script.setExecutable(true);
+		new CoralSolverBuilder()
+			.timeout(500)
+			.intervalSolver(new IntervalSolver(IntervalSolver.Solver.REALPAVER, script.getAbsolutePath(), 1))
+			.buildCoralSolver();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.util.Properties;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class LinearSolverTest {
+
+	private final Variable<Integer> i = new Variable<Integer>(BuiltinTypes.SINT32, "i");
+	private final Variable<Integer> j = new Variable<Integer>(BuiltinTypes.SINT32, "j");
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+	private final Variable<Double> z = new Variable<Double>(BuiltinTypes.DOUBLE, "z");
+
+	private static Constant<Integer> c(int v) {
+		return new Constant<Integer>(BuiltinTypes.SINT32, v);
+	}
+
+	private static Constant<Double> c(double v) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, v);
+	}
+
+	private static <E> Expression<Boolean> cmp(Expression<E> l, NumericComparator cmp, Expression<E> r) {
+		return new NumericBooleanExpression(l, cmp, r);
+	}
+
+	@Test
+	public void integerSystem() {
+		//2i + j == 10 && i - j > 2 && j >= 0
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(new NumericCompound<Integer>(
+						new NumericCompound<Integer>(c(2), NumericOperator.MUL, i), NumericOperator.PLUS, j),
+						NumericComparator.EQ, c(10)),
+				cmp(new NumericCompound<Integer>(i, NumericOperator.MINUS, j), NumericComparator.GT, c(2)),
+				cmp(j, NumericComparator.GE, c(0)));
+		Valuation val = new Valuation();
+		SolveResult res = LinearSolver.solve(expr, val);
+		Assert.assertEquals(Result.SAT, res.getResult());
+		Assert.assertTrue(expr.evaluate(val));
+	}
+
+	@Test
+	public void cyclicOrderIsUnsat() {
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(x, NumericComparator.LT, y),
+				cmp(y, NumericComparator.LT, z),
+				cmp(z, NumericComparator.LE, x));
+		Assert.assertEquals(Result.UNSAT, LinearSolver.solve(expr, null).getResult());
+	}
+
+	@Test
+	public void strictRealBounds() {
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(x, NumericComparator.GT, c(0.25)),
+				cmp(x, NumericComparator.LT, c(0.5)));
+		Valuation val = new Valuation();
+		Assert.assertEquals(Result.SAT, LinearSolver.solve(expr, val).getResult());
+		Assert.assertTrue(expr.evaluate(val));
+	}
+
+	@Test
+	public void integerGapIsLeftToCoral() {
+		//2i == 1 has a rational but no integer solution
+		Expression<Boolean> expr = cmp(
+				new NumericCompound<Integer>(c(2), NumericOperator.MUL, i), NumericComparator.EQ, c(1));
+		Assert.assertNull(LinearSolver.solve(expr, new Valuation()));
+	}
+
+	@Test
+	public void contradictoryLinearPartOfNonlinearFormula() {
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(new FunctionExpression<>(MathFunctions.SIN, x), NumericComparator.GT, c(0.5)),
+				cmp(x, NumericComparator.GT, c(3.0)),
+				cmp(x, NumericComparator.LT, c(2.0)));
+		TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+
+	@Test
+	public void integerOverflowIsNotUnsat() {
+		//i + 1 < i holds for i == Integer.MAX_VALUE
+		Expression<Boolean> expr = cmp(
+				new NumericCompound<Integer>(i, NumericOperator.PLUS, c(1)), NumericComparator.LT, i);
+		SolveResult res = LinearSolver.solve(expr, null);
+		Assert.assertTrue(res == null || res.getResult() != Result.UNSAT);
+
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Assert.assertTrue(solver.solve(expr, new Valuation()) != Result.UNSAT);
+	}
+
+	@Test
+	public void boundedIntegerArithmeticIsUnsat() {
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(i, NumericComparator.GE, c(0)),
+				cmp(i, NumericComparator.LT, c(100)),
+				cmp(new NumericCompound<Integer>(i, NumericOperator.PLUS, c(1)), NumericComparator.LT, i));
+		Assert.assertEquals(Result.UNSAT, LinearSolver.solve(expr, null).getResult());
+	}
+
+	@Test
+	public void floatingPointRoundingIsNotUnsat() {
+		//x + 1.0 == x holds for large x
+		Expression<Boolean> expr = cmp(
+				new NumericCompound<Double>(x, NumericOperator.PLUS, c(1.0)), NumericComparator.EQ, x);
+		SolveResult res = LinearSolver.solve(expr, null);
+		Assert.assertTrue(res == null || res.getResult() != Result.UNSAT);
+
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Assert.assertTrue(solver.solve(expr, new Valuation()) != Result.UNSAT);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import javax.management.ObjectName;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.SolverMetrics.Phase;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralSolverException;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class MetricsTest {
+
+	@Test
+	public void countsAndLatencies() throws Exception {
+		JmxSolverMetrics metrics = new JmxSolverMetrics().register("metrics-test");
+		CoralSolver solver = new CoralSolverBuilder()
+			.metrics(metrics)
+			.linearPresolve(false)
+			.buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 3.0));
+
+		TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+
+		Assert.assertEquals(2, metrics.getSatCount());
+		Assert.assertEquals(0, metrics.getErrorCount());
+		Assert.assertEquals(2, metrics.getLatencies(Phase.SEARCH).getCount());
+		Assert.assertEquals(2, metrics.getLatencies(Phase.TOTAL).getCount());
+		Assert.assertEquals(3.0, metrics.getMeanFormulaNodes(), 0.0);
+		Assert.assertTrue(metrics.getMeanIterations() > 0);
+
+		ObjectName name = new ObjectName(JmxSolverMetrics.DOMAIN + ":type=CoralSolver,name=" + ObjectName.quote("metrics-test"));
+		Assert.assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "SatCount"));
+		metrics.unregister();
+		Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	@Test
+	public void failedQueriesAreCounted() {
+		JmxSolverMetrics metrics = new JmxSolverMetrics();
+		CoralSolver solver = new CoralSolverBuilder().metrics(metrics).buildCoralSolver();
+		//Coral has no decimals
+		Variable<BigDecimal> x = new Variable<BigDecimal>(BuiltinTypes.DECIMAL, "x");
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				x, NumericComparator.GT, new Constant<BigDecimal>(BuiltinTypes.DECIMAL, BigDecimal.ONE));
+		try {
+			solver.solve(expr, new Valuation());
+			Assert.fail("Decimal query was translated");
+		} catch(CoralSolverException e) {
+			//expected
+		}
+		Assert.assertEquals(1, metrics.getFailureCount());
+		Assert.assertEquals(1, metrics.getQueries());
+		Assert.assertEquals(1, metrics.getLatencies(Phase.TOTAL).getCount());
+	}
+
+	@Test
+	public void histogramPercentiles() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i = 1; i <= 100; i++)
+			h.record(i);
+		Assert.assertEquals(100, h.getCount());
+		Assert.assertEquals(50.5, h.getMean(), 1e-9);
+		Assert.assertEquals(100, h.getMax());
+		long p50 = h.getPercentile(0.5);
+		Assert.assertTrue(p50 >= 50 && p50 <= 100);
+		Assert.assertEquals(100, h.getPercentile(1.0));
+	}
+}
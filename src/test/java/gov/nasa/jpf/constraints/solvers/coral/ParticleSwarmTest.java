@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class ParticleSwarmTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+	private final Variable<Integer> i = new Variable<Integer>(BuiltinTypes.SINT32, "i");
+
+	private static Constant<Double> c(double v) {
+		return new Constant<Double>(BuiltinTypes.DOUBLE, v);
+	}
+
+	@Test
+	public void swarmIsReusedAcrossDimensions() throws Exception {
+		ParticleSwarm swarm = new ParticleSwarm(20, false);
+		//i * i == 49 && i < 0
+		CompiledFitness square = CompiledFitness.compile(ExpressionUtil.and(
+				new NumericBooleanExpression(new NumericCompound<Integer>(i, NumericOperator.MUL, i),
+						NumericComparator.EQ, new Constant<Integer>(BuiltinTypes.SINT32, 49)),
+				new NumericBooleanExpression(i, NumericComparator.LT, new Constant<Integer>(BuiltinTypes.SINT32, 0))));
+		Assert.assertTrue(swarm.search(square, new double[] { -100 }, new double[] { 100 }, null, 1, 1000, Long.MAX_VALUE));
+		Assert.assertEquals(-7.0, swarm.getBest()[0], 0.0);
+
+		//sin(x) > 0.9 && x + y < -5.0
+		CompiledFitness trig = CompiledFitness.compile(ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x), NumericComparator.GT, c(0.9)),
+				new NumericBooleanExpression(new NumericCompound<Double>(x, NumericOperator.PLUS, y), NumericComparator.LT, c(-5.0))));
+		double[] lo = { -100, -100 }, hi = { 100, 100 };
+		Assert.assertTrue(swarm.search(trig, lo, hi, null, 1, 1000, Long.MAX_VALUE));
+		Assert.assertEquals(0.0, trig.evaluate(swarm.getBest()), 0.0);
+	}
+
+	@Test
+	public void batchedSearchFindsTheSamePoint() throws Exception {
+		//sin(x) * cos(y) > 0.8 && x < y
+		CompiledFitness fit = CompiledFitness.compile(ExpressionUtil.and(
+				new NumericBooleanExpression(new NumericCompound<Double>(new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericOperator.MUL, new FunctionExpression<>(MathFunctions.COS, y)), NumericComparator.GT, c(0.8)),
+				new NumericBooleanExpression(x, NumericComparator.LT, y)));
+		double[] lo = { -10, -10 }, hi = { 10, 10 };
+		ParticleSwarm single = new ParticleSwarm(40, false);
+		ParticleSwarm batched = new ParticleSwarm(40, true);
+		Assert.assertTrue(single.search(fit, lo, hi, null, 7, 1000, Long.MAX_VALUE));
+		Assert.assertTrue(batched.search(fit, lo, hi, null, 7, 1000, Long.MAX_VALUE));
+		Assert.assertEquals(single.getBest()[0], batched.getBest()[0], 0.0);
+		Assert.assertEquals(single.getBest()[1], batched.getBest()[1], 0.0);
+
+		//large swarms are evaluated in parallel
+		ParticleSwarm large = new ParticleSwarm(ParticleSwarm.PARALLEL_SIZE, true);
+		Assert.assertTrue(large.search(fit, lo, hi, null, 7, 1000, Long.MAX_VALUE));
+		Assert.assertEquals(0.0, fit.evaluate(large.getBest()), 0.0);
+	}
+
+	@Test
+	public void nativeSearchSolvesQueries() {
+		CoralSolver solver = new CoralSolverBuilder().nativePso(true).buildCoralSolver();
+		//sqrt(x) * y > 10.0 && y < 3.0
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new NumericCompound<Double>(
+						new FunctionExpression<>(MathFunctions.SQRT, x), NumericOperator.MUL, y), NumericComparator.GT, c(10.0)),
+				new NumericBooleanExpression(y, NumericComparator.LT, c(3.0)));
+		Valuation val = TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Assert.assertTrue(expr.evaluate(val));
+	}
+
+	@Test
+	public void failedSearchLeavesResultAlone() {
+		CoralSolver solver = new CoralSolverBuilder().nativePso(true).iterations(200).buildCoralSolver();
+		//x * x + 1.0 < 0.5 has no solution
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<Double>(new NumericCompound<Double>(x, NumericOperator.MUL, x),
+						NumericOperator.PLUS, c(1.0)),
+				NumericComparator.LT, c(0.5));
+		Valuation val = new Valuation();
+		val.setValue(x, 42.0);
+		Assert.assertEquals(Result.DONT_KNOW, solver.solveDetailed(expr, val).getResult());
+		Assert.assertEquals(Double.valueOf(42.0), val.getValue(x));
+		Assert.assertFalse(val.containsValueFor(y));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import coral.solvers.SolverKind;
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.SolverMetrics.Phase;
+import gov.nasa.jpf.constraints.solvers.coral.exceptions.CoralSolverException;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class RetryTest {
+
+	@Test
+	public void escalatedSettings() {
+		CoralSettings base = new CoralSolverBuilder().iterations(100).buildCoralSolver().getSettings();
+		EscalationPolicy policy = new EscalationPolicy(3, 2, Arrays.asList(SolverKind.AVM, SolverKind.RANDOM), -1);
+
+		Assert.assertSame(base, policy.settingsFor(base, 0));
+		CoralSettings first = policy.settingsFor(base, 1);
+		Assert.assertEquals(base.getSeed() + 1, first.getSeed());
+		Assert.assertEquals(200, first.getIterations());
+		Assert.assertEquals(SolverKind.AVM, first.getSolverKind());
+		CoralSettings third = policy.settingsFor(base, 3);
+		Assert.assertEquals(800, third.getIterations());
+		Assert.assertEquals(SolverKind.AVM, third.getSolverKind());
+	}
+
+	@Test
+	public void retriesDontKnow() {
+		JmxSolverMetrics metrics = new JmxSolverMetrics();
+		CoralSolver solver = new CoralSolverBuilder()
+			.iterations(50)
+			.retries(2)
+			.metrics(metrics)
+			.intervalPresolve(false)
+			.buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		//sin(x) never reaches 7.2, so every attempt gives up
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new Constant<Double>(BuiltinTypes.DOUBLE, 7.2),
+				NumericComparator.EQ, new FunctionExpression<>(MathFunctions.SIN, x));
+
+		Assert.assertEquals(Result.DONT_KNOW, solver.solve(expr, new Valuation()));
+		Assert.assertEquals(3, metrics.getLatencies(Phase.SEARCH).getCount());
+		Assert.assertEquals(1, metrics.getDontKnowCount());
+	}
+
+	@Test(expected = CoralSolverException.class)
+	public void unsupportedFailsFast() {
+		CoralSolver solver = new CoralSolverBuilder().retries(5).buildCoralSolver();
+		Variable<BigDecimal> x = new Variable<BigDecimal>(BuiltinTypes.DECIMAL, "x");
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				x, NumericComparator.GT, new Constant<BigDecimal>(BuiltinTypes.DECIMAL, BigDecimal.ONE));
+		solver.solve(expr, new Valuation());
+	}
+}
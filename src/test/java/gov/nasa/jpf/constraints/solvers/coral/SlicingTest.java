@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+import gov.nasa.jpf.constraints.util.ExpressionUtil;
+
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class SlicingTest {
+
+	private final Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+	private final Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+	private final Variable<Double> z = new Variable<Double>(BuiltinTypes.DOUBLE, "z");
+
+	private Expression<Boolean> cmp(Expression<Double> l, NumericComparator c, double r) {
+		return new NumericBooleanExpression(l, c, new Constant<Double>(BuiltinTypes.DOUBLE, r));
+	}
+
+	@Test
+	public void components() {
+		Expression<Boolean> expr = ExpressionUtil.and(
+				cmp(x, NumericComparator.GT, 1.0),
+				cmp(y, NumericComparator.LT, 2.0),
+				new NumericBooleanExpression(z, NumericComparator.EQ, y),
+				cmp(x, NumericComparator.LT, 5.0));
+		Assert.assertEquals(2, ConstraintSlicer.slice(expr).size());
+		Assert.assertEquals(1, ConstraintSlicer.slice(cmp(x, NumericComparator.GT, 1.0)).size());
+	}
+
+	@Test
+	public void mergedModel() {
+		CoralSolver solver = TstUtil.createCoralSolver(new Properties());
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 0.5)),
+				cmp(new FunctionExpression<>(MathFunctions.COS, y), NumericComparator.LT, -0.5));
+		Valuation val = TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+		Assert.assertNotNull(val.getValue(x));
+		Assert.assertNotNull(val.getValue(y));
+	}
+
+	@Test
+	public void parallelComponents() {
+		Properties conf = new Properties();
+		conf.setProperty(CoralConfig.SLICING_PARALLELISM.getPropStr(), "4");
+		try(CoralSolver solver = TstUtil.createCoralSolver(conf)) {
+			Expression<Boolean> expr = ExpressionUtil.and(
+					cmp(x, NumericComparator.GT, 1.0),
+					cmp(y, NumericComparator.LT, 2.0),
+					cmp(z, NumericComparator.GE, 3.0));
+			Valuation val = TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+			Assert.assertTrue(expr.evaluate(val));
+		}
+	}
+
+	@Test
+	public void unknownComponentDoesNotHideUnsat() {
+		Properties conf = new Properties();
+		conf.setProperty(CoralConfig.ITERATIONS.getPropStr(), "1");
+		CoralSolver solver = TstUtil.createCoralSolver(conf);
+		Expression<Boolean> expr = ExpressionUtil.and(
+				new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericComparator.EQ, new Constant<Double>(BuiltinTypes.DOUBLE, 0.123456789)),
+				cmp(y, NumericComparator.LT, 1.0),
+				cmp(y, NumericComparator.GT, 2.0));
+		TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+
+	@Test
+	public void parallelUnknownComponentDoesNotHideUnsat() {
+		Properties conf = new Properties();
+		conf.setProperty(CoralConfig.ITERATIONS.getPropStr(), "1");
+		conf.setProperty(CoralConfig.SLICING_PARALLELISM.getPropStr(), "4");
+		try(CoralSolver solver = TstUtil.createCoralSolver(conf)) {
+			Expression<Boolean> expr = ExpressionUtil.and(
+					new NumericBooleanExpression(new FunctionExpression<>(MathFunctions.SIN, x),
+							NumericComparator.EQ, new Constant<Double>(BuiltinTypes.DOUBLE, 0.123456789)),
+					cmp(y, NumericComparator.LT, 1.0),
+					cmp(y, NumericComparator.GT, 2.0));
+			TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
+		}
+	}
+}
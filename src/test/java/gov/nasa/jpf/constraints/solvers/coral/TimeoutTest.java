@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import gov.nasa.jpf.constraints.api.ConstraintSolver.Result;
+import gov.nasa.jpf.constraints.api.Expression;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.expressions.Constant;
+import gov.nasa.jpf.constraints.expressions.NumericBooleanExpression;
+import gov.nasa.jpf.constraints.expressions.NumericComparator;
+import gov.nasa.jpf.constraints.expressions.NumericCompound;
+import gov.nasa.jpf.constraints.expressions.NumericOperator;
+import gov.nasa.jpf.constraints.expressions.functions.FunctionExpression;
+import gov.nasa.jpf.constraints.expressions.functions.math.MathFunctions;
+import gov.nasa.jpf.constraints.solvers.coral.CoralSolver.CoralSolverBuilder;
+import gov.nasa.jpf.constraints.solvers.coral.SolveResult.Reason;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import java.util.Properties;
+
+import coral.solvers.SolverKind;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class TimeoutTest {
+
+	@Test
+	public void timeoutYieldsDontKnow() {
+		CoralSolver solver = new CoralSolverBuilder()
+			.iterations(100000000)
+			.timeout(1)
+			.intervalPresolve(false)
+			.buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Double> y = new Variable<Double>(BuiltinTypes.DOUBLE, "y");
+		//sin(x) * cos(y) == 2.0 has no solution, so the search uses its whole budget
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new NumericCompound<>(
+						new FunctionExpression<>(MathFunctions.SIN, x),
+						NumericOperator.MUL,
+						new FunctionExpression<>(MathFunctions.COS, y)),
+				NumericComparator.EQ,
+				new Constant<Double>(BuiltinTypes.DOUBLE, 2.0));
+
+		long start = System.currentTimeMillis();
+		SolveResult res = solver.solveDetailed(expr, new Valuation());
+		solver.close();
+		Assert.assertEquals(Result.DONT_KNOW, res.getResult());
+		Assert.assertEquals(Reason.TIMEOUT, res.getReason());
+		//the search really stopped, so it does not keep Coral busy for the other tests
+		Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	@Test
+	public void timeoutWithoutIterationBudget() {
+		//Coral has no default budget for GA_OPT4J, so its search cannot be split
+		CoralSolver solver = new CoralSolverBuilder()
+			.solverKind(SolverKind.GA_OPT4J)
+			.timeout(1)
+			.intervalPresolve(false)
+			.buildCoralSolver();
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				new FunctionExpression<>(MathFunctions.SIN, x),
+				NumericComparator.EQ,
+				new Constant<Double>(BuiltinTypes.DOUBLE, 2.0));
+
+		SolveResult res = solver.solveDetailed(expr, new Valuation());
+		solver.close();
+		Assert.assertEquals(Result.DONT_KNOW, res.getResult());
+	}
+
+	@Test
+	public void timeoutFromProperties() {
+		Properties conf = new Properties();
+		conf.setProperty(CoralConfig.TIMEOUT.getPropStr(), "60000");
+		CoralSolver solver = TstUtil.createCoralSolver(conf);
+		Assert.assertEquals(60000L, solver.getSettings().getTimeoutMillis());
+
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Expression<Boolean> expr = new NumericBooleanExpression(
+				x, NumericComparator.GT, new Constant<Double>(BuiltinTypes.DOUBLE, 2.0));
+		TstUtil.runTest(solver, expr, Result.SAT, TstUtil.PRINT_CORAL_EXPR);
+	}
+}
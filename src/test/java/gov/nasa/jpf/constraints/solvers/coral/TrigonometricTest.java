@@ -145,7 +145,8 @@ public class TrigonometricTest {
 				NumericComparator.EQ, new FunctionExpression<>(
 						MathFunctions.SIN, x));
 
-		TstUtil.runTest(solver, expr, Result.DONT_KNOW, TstUtil.PRINT_CORAL_EXPR);
+		//sin(x) never reaches 7.2, which the interval presolver proves
+		TstUtil.runTest(solver, expr, Result.UNSAT, TstUtil.PRINT_CORAL_EXPR);
 	}
 
 	@Test
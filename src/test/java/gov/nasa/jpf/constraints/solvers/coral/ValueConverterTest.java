@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015, United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ *
+ * The PSYCO: A Predicate-based Symbolic Compositional Reasoning environment
+ * platform is licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package gov.nasa.jpf.constraints.solvers.coral;
+
+import symlib.SymDoubleConstant;
+import symlib.SymIntConstant;
+import gov.nasa.jpf.constraints.api.Valuation;
+import gov.nasa.jpf.constraints.api.Variable;
+import gov.nasa.jpf.constraints.types.BuiltinTypes;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+public class ValueConverterTest {
+
+	@Test
+	public void valuesGetTheVariableType() {
+		Variable<Double> x = new Variable<Double>(BuiltinTypes.DOUBLE, "x");
+		Variable<Integer> i = new Variable<Integer>(BuiltinTypes.SINT32, "i");
+		Variable<Long> l = new Variable<Long>(BuiltinTypes.SINT64, "l");
+		Valuation val = new Valuation();
+		ValueConverter.set(val, x, new SymIntConstant(3));
+		ValueConverter.set(val, i, new SymDoubleConstant(-2.0));
+		ValueConverter.set(val, l, new SymIntConstant(7));
+		Assert.assertEquals(Double.valueOf(3.0), val.getValue(x));
+		Assert.assertEquals(Integer.valueOf(-2), val.getValue(i));
+		Assert.assertEquals(Long.valueOf(7L), val.getValue(l));
+	}
+
+	@Test
+	public void booleansHaveNoConverter() {
+		//they are parsed from Coral's answer instead
+		Assert.assertNull(ValueConverter.of(BuiltinTypes.BOOL));
+	}
+}